@@ -0,0 +1,64 @@
+package ru.nexus.common.event.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import ru.nexus.common.event.ProductCreatedEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer and consumer side conversion of a ProductCreatedEvent: Jackson2JsonMessageConverter as the
+ * services have used it, against the binary envelope. Body sizes are printed once per trial.
+ * <p>
+ * Run with {@code ./gradlew :common-lib:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EventMessageConverterBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public EventMessageConverter.Format format;
+
+    private EventMessageConverter converter;
+    private ProductCreatedEvent event;
+    private Message encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same fallback as the services; JSON format is exactly what Jackson2JsonMessageConverter writes
+        converter = new EventMessageConverter(EventSchemas.defaults(), new Jackson2JsonMessageConverter(), format,
+                () -> "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        event = ProductCreatedEvent.builder()
+                .skuCode("APL-IP15P-256-NT")
+                .title("Apple iPhone 15 Pro 256GB Natural Titanium")
+                .build();
+        encoded = converter.toMessage(event, new MessageProperties());
+        if (format == EventMessageConverter.Format.JSON) {
+            // The listener adapter tells the JSON converter what to build; the binary frame carries it
+            encoded.getMessageProperties().setInferredArgumentType(ProductCreatedEvent.class);
+        }
+        System.out.printf("%n%s body: %d bytes, %d headers%n", format, encoded.getBody().length,
+                encoded.getMessageProperties().getHeaders().size());
+    }
+
+    @Benchmark
+    public Message encode() {
+        return converter.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decode() {
+        return converter.fromMessage(encoded);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.nexus.common.messaging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.testcontainers.containers.RabbitMQContainer;
+import ru.nexus.common.event.ProductCreatedEvent;
+import ru.nexus.common.test.ContainerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second into a local RabbitMQ container, {@value #BATCH} events per invocation:
+ * <ul>
+ *     <li>{@code TEMPLATE}: plain {@code convertAndSend}, fire and forget, as the services do today</li>
+ *     <li>{@code TEMPLATE_CONFIRMED}: {@code convertAndSend} waiting for each confirm, the cost of knowing
+ *     a message arrived without a pipeline</li>
+ *     <li>{@code BATCHING}: {@link BatchingEventPublisher}, all confirms awaited at the end</li>
+ * </ul>
+ * A queue is purged between iterations so broker memory doesn't skew later ones.
+ * <p>
+ * Needs Docker. Run with {@code ./gradlew :common-lib:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchingEventPublisherBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final String QUEUE = "benchmark.events";
+
+    public enum Publisher { TEMPLATE, TEMPLATE_CONFIRMED, BATCHING }
+
+    @Param({"TEMPLATE", "TEMPLATE_CONFIRMED", "BATCHING"})
+    public Publisher publisher;
+
+    private RabbitMQContainer rabbit;
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin admin;
+    private RabbitTemplate template;
+    private BatchingEventPublisher batchingPublisher;
+    private ProductCreatedEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rabbit = ContainerFactory.rabbit();
+        rabbit.start();
+
+        connectionFactory = new CachingConnectionFactory(rabbit.getHost(), rabbit.getAmqpPort());
+        connectionFactory.setUsername(rabbit.getAdminUsername());
+        connectionFactory.setPassword(rabbit.getAdminPassword());
+        if (publisher == Publisher.TEMPLATE_CONFIRMED) {
+            connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+        }
+        admin = new RabbitAdmin(connectionFactory);
+        admin.declareQueue(new Queue(QUEUE, false));
+
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        template = new RabbitTemplate(connectionFactory);
+        template.setMessageConverter(converter);
+        batchingPublisher = new BatchingEventPublisher(connectionFactory.getRabbitConnectionFactory(), converter,
+                BatchingEventPublisher.Settings.defaults());
+
+        event = ProductCreatedEvent.builder().skuCode("SKU-000001").title("iPhone 15 Pro 256GB").build();
+    }
+
+    @Setup(Level.Iteration)
+    public void purge() {
+        admin.purgeQueue(QUEUE, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchingPublisher.close();
+        connectionFactory.destroy();
+        rabbit.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void publish() {
+        switch (publisher) {
+            case TEMPLATE -> {
+                for (int i = 0; i < BATCH; i++) {
+                    template.convertAndSend("", QUEUE, event);
+                }
+            }
+            case TEMPLATE_CONFIRMED -> {
+                for (int i = 0; i < BATCH; i++) {
+                    template.invoke(operations -> {
+                        operations.convertAndSend("", QUEUE, event);
+                        operations.waitForConfirmsOrDie(5_000);
+                        return null;
+                    });
+                }
+            }
+            case BATCHING -> {
+                CompletableFuture<?>[] confirms = new CompletableFuture<?>[BATCH];
+                for (int i = 0; i < BATCH; i++) {
+                    confirms[i] = batchingPublisher.publish("", QUEUE, event);
+                }
+                CompletableFuture.allOf(confirms).join();
+            }
+        }
+    }
+}
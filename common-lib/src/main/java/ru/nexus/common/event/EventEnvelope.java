@@ -0,0 +1,27 @@
+package ru.nexus.common.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Metadata that travels with every event, whatever its wire format.
+ *
+ * @param version     envelope layout version, not the payload schema version
+ * @param eventId     unique per event; the default AMQP message id, so consumers can drop repeats
+ * @param type        stable event name, e.g. {@code product.created}; never a Java class name
+ * @param occurredAt  when the producer created the event
+ * @param traceParent W3C traceparent of the producing request, or null
+ * @param payload     the event itself
+ */
+public record EventEnvelope<T>(int version, UUID eventId, String type, Instant occurredAt, String traceParent, T payload) {
+
+    public static final int CURRENT_VERSION = 1;
+
+    public static <T> EventEnvelope<T> of(String type, T payload, String traceParent) {
+        return of(UUID.randomUUID(), type, payload, traceParent);
+    }
+
+    public static <T> EventEnvelope<T> of(UUID eventId, String type, T payload, String traceParent) {
+        return new EventEnvelope<>(CURRENT_VERSION, eventId, type, Instant.now(), traceParent, payload);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.nexus.common.event.codec;
+
+import ru.nexus.common.event.EventEnvelope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary frame for an {@link EventEnvelope}:
+ * <pre>
+ * magic(1) envelopeVersion(1) eventId(16) occurredAtMillis(8) type(str) traceParent(str)
+ * schemaVersion(2) payload(schema-defined)
+ * </pre>
+ * Strings are a varint byte length (0 for null, n + 1 otherwise) followed by UTF-8,
+ * at most {@link #MAX_STRING_BYTES} of it.
+ */
+public class EventCodec {
+
+    static final byte MAGIC = (byte) 0xE7;
+    static final int MAX_STRING_BYTES = 1 << 20;
+
+    private final EventSchemas schemas;
+
+    public EventCodec(EventSchemas schemas) {
+        this.schemas = schemas;
+    }
+
+    public boolean canEncode(Object event) {
+        return event instanceof EventEnvelope<?> envelope
+                ? schemas.forType(envelope.type()) != null
+                : schemas.forClass(event.getClass()) != null;
+    }
+
+    /**
+     * Type name the payload of this class travels under, or null when it has no schema.
+     */
+    public String typeOf(Class<?> eventClass) {
+        EventSchema<?> schema = schemas.forClass(eventClass);
+        return schema != null ? schema.type() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public byte[] encode(EventEnvelope<?> envelope) {
+        EventSchema<Object> schema = (EventSchema<Object>) schemas.forType(envelope.type());
+        if (schema == null) {
+            throw new IllegalArgumentException("No event schema for type " + envelope.type());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(envelope.version());
+            out.writeLong(envelope.eventId().getMostSignificantBits());
+            out.writeLong(envelope.eventId().getLeastSignificantBits());
+            out.writeLong(envelope.occurredAt().toEpochMilli());
+            writeString(out, envelope.type());
+            writeString(out, envelope.traceParent());
+            out.writeShort(schema.version());
+            schema.write(envelope.payload(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public EventEnvelope<?> decode(byte[] frame) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame))) {
+            if (in.readByte() != MAGIC) {
+                throw new IllegalArgumentException("Not an event frame");
+            }
+            int envelopeVersion = in.readUnsignedByte();
+            UUID eventId = new UUID(in.readLong(), in.readLong());
+            Instant occurredAt = Instant.ofEpochMilli(in.readLong());
+            String type = readString(in);
+            String traceParent = readString(in);
+            int schemaVersion = in.readUnsignedShort();
+
+            EventSchema<?> schema = schemas.forType(type);
+            if (schema == null) {
+                throw new IllegalArgumentException("No event schema for type " + type);
+            }
+            return new EventEnvelope<>(envelopeVersion, eventId, type, occurredAt, traceParent,
+                    schema.read(schemaVersion, in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, utf8.length + 1);
+        out.write(utf8);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        // The length comes off the wire: check it before sizing an array by it
+        int size = length - 1;
+        if (size < 0 || size > MAX_STRING_BYTES || in instanceof InputStream stream && size > stream.available()) {
+            throw new IOException("String length " + size + " out of range");
+        }
+        byte[] utf8 = new byte[size];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
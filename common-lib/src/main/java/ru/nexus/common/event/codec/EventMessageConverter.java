@@ -0,0 +1,97 @@
+package ru.nexus.common.event.codec;
+
+import org.slf4j.MDC;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.nexus.common.event.EventEnvelope;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Writes events as {@link EventCodec} frames or as JSON, and reads either by content type. Consumers
+ * read both, so rolling out is: deploy this everywhere with {@link Format#JSON}, then switch producers
+ * to {@link Format#BINARY}. Events without a registered schema always go as JSON.
+ * <p>
+ * Listeners keep receiving the bare event; envelope fields are also set as AMQP properties
+ * (message id, timestamp, type and a {@code traceparent} header) for anyone who needs them.
+ * A message id the caller has already set, e.g. an outbox id, is kept, and the frame's event id is
+ * derived from it, so redeliveries of one message carry one event id.
+ */
+public class EventMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/vnd.nexus.event+binary";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    public enum Format { JSON, BINARY }
+
+    private final EventCodec codec;
+    private final MessageConverter json;
+    private final Format format;
+    private final Supplier<String> traceParent;
+
+    public EventMessageConverter(EventSchemas schemas, MessageConverter json, Format format) {
+        this(schemas, json, format, () -> MDC.get(TRACEPARENT_HEADER));
+    }
+
+    public EventMessageConverter(EventSchemas schemas, MessageConverter json, Format format, Supplier<String> traceParent) {
+        this.codec = new EventCodec(schemas);
+        this.json = json;
+        this.format = format;
+        this.traceParent = traceParent;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (format == Format.JSON || !codec.canEncode(object)) {
+            Object payload = object instanceof EventEnvelope<?> envelope ? envelope.payload() : object;
+            return json.toMessage(payload, messageProperties);
+        }
+
+        String messageId = messageProperties.getMessageId();
+        EventEnvelope<?> envelope = object instanceof EventEnvelope<?> given
+                ? given
+                : EventEnvelope.of(eventIdFor(messageId), codec.typeOf(object.getClass()), object, traceParent.get());
+        byte[] body = codec.encode(envelope);
+
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        if (messageId == null) {
+            messageProperties.setMessageId(envelope.eventId().toString());
+        }
+        messageProperties.setTimestamp(Date.from(envelope.occurredAt()));
+        messageProperties.setType(envelope.type());
+        if (envelope.traceParent() != null) {
+            messageProperties.setHeader(TRACEPARENT_HEADER, envelope.traceParent());
+        }
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        if (!CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+            return json.fromMessage(message);
+        }
+        try {
+            return codec.decode(message.getBody()).payload();
+        } catch (RuntimeException e) {
+            // Not retryable: the container rejects the message instead of redelivering it
+            throw new MessageConversionException("Failed to decode event frame", e);
+        }
+    }
+
+    private static UUID eventIdFor(String messageId) {
+        if (messageId == null) {
+            return UUID.randomUUID();
+        }
+        try {
+            return UUID.fromString(messageId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(messageId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.nexus.common.event.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Hand-written field layout of one event type: no reflection and no field names on the wire.
+ * Fields are only ever appended; {@link #read} gets the version the producer wrote, so a consumer
+ * reads older payloads and a newer one just ignores trailing fields it doesn't know.
+ */
+public interface EventSchema<T> {
+
+    /**
+     * Stable wire name, kept when the class moves or is renamed.
+     */
+    String type();
+
+    int version();
+
+    Class<T> eventClass();
+
+    void write(T event, DataOutput out) throws IOException;
+
+    T read(int version, DataInput in) throws IOException;
+}
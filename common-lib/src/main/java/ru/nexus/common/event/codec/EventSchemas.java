@@ -0,0 +1,32 @@
+package ru.nexus.common.event.codec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Known event schemas by class and by wire type. Events without a schema are sent as JSON.
+ */
+public class EventSchemas {
+
+    private final Map<Class<?>, EventSchema<?>> byClass = new ConcurrentHashMap<>();
+    private final Map<String, EventSchema<?>> byType = new ConcurrentHashMap<>();
+
+    public static EventSchemas defaults() {
+        return new EventSchemas().register(new ProductCreatedEventSchema());
+    }
+
+    public EventSchemas register(EventSchema<?> schema) {
+        byClass.put(schema.eventClass(), schema);
+        byType.put(schema.type(), schema);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> EventSchema<T> forClass(Class<T> eventClass) {
+        return (EventSchema<T>) byClass.get(eventClass);
+    }
+
+    public EventSchema<?> forType(String type) {
+        return byType.get(type);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.nexus.common.event.codec;
+
+import ru.nexus.common.event.ProductCreatedEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class ProductCreatedEventSchema implements EventSchema<ProductCreatedEvent> {
+
+    @Override
+    public String type() {
+        return "product.created";
+    }
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public Class<ProductCreatedEvent> eventClass() {
+        return ProductCreatedEvent.class;
+    }
+
+    @Override
+    public void write(ProductCreatedEvent event, DataOutput out) throws IOException {
+        EventCodec.writeString(out, event.getSkuCode());
+        EventCodec.writeString(out, event.getTitle());
+    }
+
+    @Override
+    public ProductCreatedEvent read(int version, DataInput in) throws IOException {
+        return ProductCreatedEvent.builder()
+                .skuCode(EventCodec.readString(in))
+                .title(EventCodec.readString(in))
+                .build();
+    }
+}
@@ -0,0 +1,298 @@
+package ru.nexus.common.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes events without waiting on the broker: {@link #publish} queues the message and returns a
+ * future that completes when RabbitMQ confirms it. A few publisher threads, one confirm-mode channel
+ * each, drain the queue in batches, writing each exchange/routing key group back to back and never
+ * waiting for a confirm before sending the next message.
+ * <p>
+ * At most {@code maxInFlight} messages are queued or unconfirmed at once; past that, {@code publish}
+ * blocks for up to {@code acquireTimeout} and then fails the future instead of growing the heap.
+ * <p>
+ * Uses its own connection. With Spring Boot, pass the factory behind the auto-configured one:
+ * {@code new BatchingEventPublisher(cachingConnectionFactory.getRabbitConnectionFactory(), messageConverter, Settings.defaults())};
+ * declared as a {@code @Bean}, it is closed on shutdown, waiting for outstanding confirms.
+ */
+@Slf4j
+public class BatchingEventPublisher implements AutoCloseable {
+
+    private static final String CONNECTION_NAME = "batching-event-publisher";
+    private static final long POLL_MILLIS = 100;
+
+    private final ConnectionFactory connectionFactory;
+    private final MessageConverter messageConverter;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final Settings settings;
+    private final BlockingQueue<PendingPublish> queue = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final List<Worker> workers = new ArrayList<>();
+    private Connection connection;
+    private volatile boolean closed;
+
+    /**
+     * @param channels       publisher threads, one channel each
+     * @param maxInFlight    messages queued or waiting for a confirm before {@code publish} pushes back
+     * @param maxBatchSize   messages taken off the queue per channel pass
+     * @param acquireTimeout how long {@code publish} waits for room before failing the future
+     * @param closeTimeout   how long {@link #close} waits for queued messages and confirms
+     */
+    public record Settings(int channels, int maxInFlight, int maxBatchSize, Duration acquireTimeout, Duration closeTimeout) {
+
+        public static Settings defaults() {
+            return new Settings(4, 10_000, 256, Duration.ofSeconds(5), Duration.ofSeconds(10));
+        }
+    }
+
+    public BatchingEventPublisher(ConnectionFactory connectionFactory, MessageConverter messageConverter, Settings settings) {
+        this.connectionFactory = connectionFactory;
+        this.messageConverter = messageConverter;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxInFlight());
+        for (int i = 0; i < settings.channels(); i++) {
+            Worker worker = new Worker();
+            worker.thread = Thread.ofPlatform().name(CONNECTION_NAME + "-" + i).daemon().start(worker);
+            workers.add(worker);
+        }
+    }
+
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Object event) {
+        CompletableFuture<Void> confirmed = new CompletableFuture<>();
+        if (closed) {
+            confirmed.completeExceptionally(new IllegalStateException("Publisher is closed"));
+            return confirmed;
+        }
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                confirmed.completeExceptionally(new RejectedExecutionException(
+                        settings.maxInFlight() + " messages are already waiting for confirms"));
+                return confirmed;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            confirmed.completeExceptionally(e);
+            return confirmed;
+        }
+
+        Message message;
+        try {
+            // On the caller's thread, so serialization cost is spread over callers, not the publisher threads
+            message = messageConverter.toMessage(event, new MessageProperties());
+        } catch (RuntimeException e) {
+            permits.release();
+            confirmed.completeExceptionally(e);
+            return confirmed;
+        }
+        confirmed.whenComplete((ignored, error) -> permits.release());
+        PendingPublish pending = new PendingPublish(exchange, routingKey, message, confirmed);
+        queue.add(pending);
+        // close() may have drained the queue for the last time between the check above and the add;
+        // if nobody has taken the message since, nobody will
+        if (closed && queue.remove(pending)) {
+            confirmed.completeExceptionally(new IllegalStateException("Publisher is closed"));
+        }
+        return confirmed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.nanoTime() + settings.closeTimeout().toNanos();
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            worker.awaitConfirms(Math.max(0, deadline - System.nanoTime()));
+        }
+        workers.forEach(worker -> worker.thread.interrupt());
+
+        List<PendingPublish> unsent = new ArrayList<>();
+        queue.drainTo(unsent);
+        fail(unsent, new IllegalStateException("Publisher closed before the message was sent"));
+        synchronized (this) {
+            if (connection != null && connection.isOpen()) {
+                try {
+                    // Closing the channels fails whatever is still unconfirmed
+                    connection.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close publisher connection. Error: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private synchronized Channel openChannel() throws IOException {
+        if (connection == null || !connection.isOpen()) {
+            try {
+                connection = connectionFactory.newConnection(CONNECTION_NAME);
+            } catch (TimeoutException e) {
+                throw new IOException("Timed out connecting to RabbitMQ", e);
+            }
+        }
+        Channel channel = connection.createChannel();
+        channel.confirmSelect();
+        return channel;
+    }
+
+    private static void fail(List<PendingPublish> pending, Throwable error) {
+        pending.forEach(publish -> publish.confirmed().completeExceptionally(error));
+    }
+
+    private record PendingPublish(String exchange, String routingKey, Message message, CompletableFuture<Void> confirmed) {
+    }
+
+    /**
+     * One channel and the messages sent on it but not yet confirmed, by publish sequence number.
+     * Sequence numbers restart with every channel, hence one map per channel.
+     */
+    private static final class ConfirmTracker {
+
+        private final Channel channel;
+        private final ConcurrentNavigableMap<Long, PendingPublish> unconfirmed = new ConcurrentSkipListMap<>();
+
+        private ConfirmTracker(Channel channel) {
+            this.channel = channel;
+            channel.addConfirmListener(
+                    (sequence, multiple) -> settle(sequence, multiple, null),
+                    (sequence, multiple) -> settle(sequence, multiple, new AmqpException("Message was nacked by the broker")));
+            channel.addShutdownListener(cause -> failAll(cause));
+        }
+
+        private void settle(long sequence, boolean multiple, Throwable error) {
+            Map<Long, PendingPublish> settled = multiple
+                    ? unconfirmed.headMap(sequence, true)
+                    : unconfirmed.subMap(sequence, true, sequence, true);
+            for (PendingPublish publish : settled.values()) {
+                if (error == null) {
+                    publish.confirmed().complete(null);
+                } else {
+                    publish.confirmed().completeExceptionally(error);
+                }
+            }
+            settled.clear();
+        }
+
+        private void failAll(Throwable cause) {
+            List<PendingPublish> lost = new ArrayList<>(unconfirmed.values());
+            unconfirmed.clear();
+            fail(lost, new AmqpIOException(new IOException("Channel closed before confirming", cause)));
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private Thread thread;
+        private ConfirmTracker tracker;
+
+        @Override
+        public void run() {
+            List<PendingPublish> batch = new ArrayList<>(settings.maxBatchSize());
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    PendingPublish first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, settings.maxBatchSize() - 1);
+                    send(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void send(List<PendingPublish> batch) {
+            // Stable sort: groups routes together and keeps per-route order
+            batch.sort(Comparator.comparing(PendingPublish::exchange).thenComparing(PendingPublish::routingKey));
+            int sent = 0;
+            try {
+                ConfirmTracker current = tracker();
+                for (PendingPublish publish : batch) {
+                    long sequence = current.channel.getNextPublishSeqNo();
+                    // Tracked before the write: the confirm may arrive before basicPublish returns
+                    current.unconfirmed.put(sequence, publish);
+                    try {
+                        current.channel.basicPublish(publish.exchange(), publish.routingKey(), false,
+                                propertiesConverter.fromMessageProperties(publish.message().getMessageProperties(), "UTF-8"),
+                                publish.message().getBody());
+                    } catch (IOException | RuntimeException e) {
+                        current.unconfirmed.remove(sequence);
+                        throw e;
+                    }
+                    sent++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to publish {} events. Error: {}", batch.size() - sent, e.getMessage());
+                fail(batch.subList(sent, batch.size()), e instanceof IOException io ? new AmqpIOException(io) : e);
+                discardChannel();
+            }
+        }
+
+        private ConfirmTracker tracker() throws IOException {
+            if (tracker == null || !tracker.channel.isOpen()) {
+                tracker = new ConfirmTracker(openChannel());
+            }
+            return tracker;
+        }
+
+        private void discardChannel() {
+            if (tracker != null && tracker.channel.isOpen()) {
+                try {
+                    // Fails its unconfirmed messages through the shutdown listener
+                    tracker.channel.abort();
+                } catch (IOException e) {
+                    log.debug("Failed to abort publisher channel. Error: {}", e.getMessage());
+                }
+            }
+            tracker = null;
+        }
+
+        private void awaitConfirms(long timeoutNanos) {
+            ConfirmTracker current = tracker;
+            if (current == null || !current.channel.isOpen()) {
+                return;
+            }
+            try {
+                current.channel.waitForConfirms(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (TimeoutException e) {
+                log.warn("{} events still unconfirmed at shutdown", current.unconfirmed.size());
+            }
+        }
+    }
+}
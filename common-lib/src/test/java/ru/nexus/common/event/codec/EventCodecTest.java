@@ -0,0 +1,70 @@
+package ru.nexus.common.event.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import ru.nexus.common.event.EventEnvelope;
+import ru.nexus.common.event.ProductCreatedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCodecTest {
+
+    private final EventCodec codec = new EventCodec(EventSchemas.defaults());
+
+    @Test
+    @DisplayName("Should reject a string length running past the end of the frame")
+    void rejectsTruncatedString() {
+        byte[] frame = codec.encode(EventEnvelope.of("product.created",
+                ProductCreatedEvent.builder().skuCode("APL-IP15").title("Apple iPhone 15").build(), null));
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(frame, frame.length - 4)))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject oversized and negative string lengths without allocating them")
+    void rejectsOutOfRangeLengths() throws IOException {
+        // Integer.MAX_VALUE, then a varint whose fifth byte sets the sign bit
+        for (byte[] length : new byte[][]{
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x0F}}) {
+            byte[] frame = frameWithTypeLength(length);
+
+            assertThatThrownBy(() -> codec.decode(frame))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("out of range");
+
+            // The listener must see a conversion failure it dead-letters, not an Error
+            EventMessageConverter converter = new EventMessageConverter(EventSchemas.defaults(),
+                    new Jackson2JsonMessageConverter(), EventMessageConverter.Format.BINARY, () -> null);
+            MessageProperties properties = new MessageProperties();
+            properties.setContentType(EventMessageConverter.CONTENT_TYPE);
+            assertThatThrownBy(() -> converter.fromMessage(new Message(frame, properties)))
+                    .isInstanceOf(MessageConversionException.class);
+        }
+    }
+
+    private static byte[] frameWithTypeLength(byte[] length) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(EventCodec.MAGIC);
+        out.writeByte(EventEnvelope.CURRENT_VERSION);
+        out.writeLong(1);
+        out.writeLong(2);
+        out.writeLong(1_700_000_000_000L);
+        out.write(length);
+        out.write(new byte[16]);
+        return bytes.toByteArray();
+    }
+}
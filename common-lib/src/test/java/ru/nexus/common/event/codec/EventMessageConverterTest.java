@@ -0,0 +1,88 @@
+package ru.nexus.common.event.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import ru.nexus.common.event.EventEnvelope;
+import ru.nexus.common.event.ProductCreatedEvent;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventMessageConverterTest {
+
+    private static final String TRACE_PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    private final ProductCreatedEvent event = ProductCreatedEvent.builder()
+            .skuCode("APL-IP15P-256-NT")
+            .title("Apple iPhone 15 Pro")
+            .build();
+
+    @Test
+    @DisplayName("Should round-trip an event through the binary frame")
+    void binaryRoundTrip() {
+        EventMessageConverter converter = converter(EventMessageConverter.Format.BINARY);
+
+        Message message = converter.toMessage(event, new MessageProperties());
+
+        MessageProperties properties = message.getMessageProperties();
+        assertThat(properties.getContentType()).isEqualTo(EventMessageConverter.CONTENT_TYPE);
+        assertThat(properties.getType()).isEqualTo("product.created");
+        assertThat((String) properties.getHeader(EventMessageConverter.TRACEPARENT_HEADER)).isEqualTo(TRACE_PARENT);
+        assertThat(converter.fromMessage(message)).isEqualTo(event);
+
+        EventEnvelope<?> envelope = new EventCodec(EventSchemas.defaults()).decode(message.getBody());
+        assertThat(envelope.eventId().toString()).isEqualTo(properties.getMessageId());
+        assertThat(envelope.traceParent()).isEqualTo(TRACE_PARENT);
+    }
+
+    @Test
+    @DisplayName("Should keep a preset message id and derive the frame's event id from it")
+    void derivesEventIdFromMessageId() {
+        EventMessageConverter converter = converter(EventMessageConverter.Format.BINARY);
+        EventCodec codec = new EventCodec(EventSchemas.defaults());
+
+        Message first = converter.toMessage(event, withMessageId("65f1c0ffee0000000000002a"));
+        Message again = converter.toMessage(event, withMessageId("65f1c0ffee0000000000002a"));
+
+        assertThat(first.getMessageProperties().getMessageId()).isEqualTo("65f1c0ffee0000000000002a");
+        assertThat(codec.decode(first.getBody()).eventId()).isEqualTo(codec.decode(again.getBody()).eventId());
+
+        UUID uuid = UUID.randomUUID();
+        Message withUuid = converter.toMessage(event, withMessageId(uuid.toString()));
+        assertThat(codec.decode(withUuid.getBody()).eventId()).isEqualTo(uuid);
+    }
+
+    @Test
+    @DisplayName("Should write JSON in JSON mode and for events without a schema, and read both back")
+    void jsonFallback() {
+        EventMessageConverter json = converter(EventMessageConverter.Format.JSON);
+        Message message = json.toMessage(event, new MessageProperties());
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        message.getMessageProperties().setInferredArgumentType(ProductCreatedEvent.class);
+        assertThat(json.fromMessage(message)).isEqualTo(event);
+
+        EventMessageConverter binary = converter(EventMessageConverter.Format.BINARY);
+        Message unregistered = binary.toMessage(Map.of("skuCode", "SKU-1"), new MessageProperties());
+        assertThat(unregistered.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        assertThat(binary.fromMessage(unregistered)).isEqualTo(Map.of("skuCode", "SKU-1"));
+
+        // A binary consumer still reads what a JSON producer wrote
+        assertThat(binary.fromMessage(message)).isEqualTo(event);
+    }
+
+    private static EventMessageConverter converter(EventMessageConverter.Format format) {
+        return new EventMessageConverter(EventSchemas.defaults(), new Jackson2JsonMessageConverter(), format,
+                () -> TRACE_PARENT);
+    }
+
+    private static MessageProperties withMessageId(String messageId) {
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(messageId);
+        return properties;
+    }
+}
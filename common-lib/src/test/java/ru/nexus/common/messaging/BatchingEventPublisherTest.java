@@ -0,0 +1,156 @@
+package ru.nexus.common.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a mocked channel whose confirms the test sends by hand.
+ */
+class BatchingEventPublisherTest {
+
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    private final Channel channel = mock(Channel.class);
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private volatile ConfirmCallback ack;
+    private volatile ConfirmCallback nack;
+    private BatchingEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.newConnection(anyString())).thenReturn(connection);
+        when(connection.createChannel()).thenReturn(channel);
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.getNextPublishSeqNo()).thenAnswer(invocation -> nextSequence.get());
+        doAnswer(invocation -> {
+            ack = invocation.getArgument(0);
+            nack = invocation.getArgument(1);
+            return null;
+        }).when(channel).addConfirmListener(any(ConfirmCallback.class), any(ConfirmCallback.class));
+        doAnswer(invocation -> {
+            nextSequence.incrementAndGet();
+            return null;
+        }).when(channel).basicPublish(anyString(), anyString(), anyBoolean(), any(AMQP.BasicProperties.class), any(byte[].class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete futures by confirm sequence, including multiple acks and nacks")
+    void matchesConfirms() throws Exception {
+        publisher = publisher(10, Duration.ofSeconds(1));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(publisher.publish("events", "sku", "event-" + i));
+        }
+        verify(channel, timeout(2000).times(4))
+                .basicPublish(anyString(), anyString(), anyBoolean(), any(AMQP.BasicProperties.class), any(byte[].class));
+
+        ack.handle(2, true);
+        assertThat(futures.get(0)).isCompleted();
+        assertThat(futures.get(1)).isCompleted();
+        assertThat(futures.get(2)).isNotDone();
+
+        nack.handle(3, false);
+        assertThat(futures.get(2)).isCompletedExceptionally();
+        assertThat(futures.get(3)).isNotDone();
+        assertThatThrownBy(() -> futures.get(2).get()).hasCauseInstanceOf(AmqpException.class);
+
+        ack.handle(4, false);
+        assertThat(futures.get(3)).isCompleted();
+    }
+
+    @Test
+    @DisplayName("Should fail publishes past max in flight until confirms free room")
+    void pushesBack() throws Exception {
+        publisher = publisher(2, Duration.ofMillis(100));
+        publisher.publish("events", "sku", "a");
+        publisher.publish("events", "sku", "b");
+
+        CompletableFuture<Void> rejected = publisher.publish("events", "sku", "c");
+        assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        verify(channel, timeout(2000).times(2))
+                .basicPublish(anyString(), anyString(), anyBoolean(), any(AMQP.BasicProperties.class), any(byte[].class));
+        ack.handle(1, false);
+        CompletableFuture<Void> admitted = publisher.publish("events", "sku", "d");
+        verify(channel, timeout(2000).times(3))
+                .basicPublish(anyString(), anyString(), anyBoolean(), any(AMQP.BasicProperties.class), any(byte[].class));
+        assertThat(admitted).isNotDone();
+    }
+
+    @Test
+    @DisplayName("Should fail a publish that lands after close has drained the queue")
+    void failsPublishRacingClose() throws Exception {
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch closedLatch = new CountDownLatch(1);
+        SimpleMessageConverter stalling = new SimpleMessageConverter() {
+            @Override
+            protected Message createMessage(Object object, MessageProperties messageProperties) {
+                converting.countDown();
+                try {
+                    closedLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.createMessage(object, messageProperties);
+            }
+        };
+        BatchingEventPublisher racing = new BatchingEventPublisher(connectionFactory, stalling,
+                new BatchingEventPublisher.Settings(1, 10, 16, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+
+        CompletableFuture<CompletableFuture<Void>> published = CompletableFuture.supplyAsync(
+                () -> racing.publish("events", "sku", "late"));
+        converting.await();
+        racing.close();
+        closedLatch.countDown();
+
+        CompletableFuture<Void> late = published.get(1, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> late.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(racing.publish("events", "sku", "after")).isCompletedExceptionally();
+    }
+
+    private BatchingEventPublisher publisher(int maxInFlight, Duration acquireTimeout) {
+        return new BatchingEventPublisher(connectionFactory, new SimpleMessageConverter(),
+                new BatchingEventPublisher.Settings(1, maxInFlight, 16, acquireTimeout, Duration.ofSeconds(1)));
+    }
+}
@@ -4,6 +4,7 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.images.builder.Transferable;
 import org.testcontainers.utility.DockerImageName;
 
 public class ContainerFactory {
@@ -21,8 +22,13 @@ public class ContainerFactory {
         return new PostgreSQLContainer<>(POSTGRES_VER);
     }
 
+    // The image's own plugins plus the consistent hash exchange the product event partitions use
+    private static final String RABBIT_PLUGINS =
+            "[rabbitmq_management,rabbitmq_prometheus,rabbitmq_consistent_hash_exchange].";
+
     public static RabbitMQContainer rabbit() {
-        return new RabbitMQContainer(DockerImageName.parse(RABBIT_VER));
+        return new RabbitMQContainer(DockerImageName.parse(RABBIT_VER))
+                .withCopyToContainer(Transferable.of(RABBIT_PLUGINS), "/etc/rabbitmq/enabled_plugins");
     }
 
     public static GenericContainer<?> redis() {
@@ -0,0 +1,104 @@
+package ru.nexus.inventory.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.CustomExchange;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import ru.nexus.inventory.listener.ProductCreatedListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Product events arrive through a consistent-hash exchange keyed by SKU, spread over
+ * {@code inventory.partitions.count} queues. Each queue gets exactly one listener thread here, and
+ * single-active-consumer makes it one across all inventory instances, so events for a SKU are
+ * handled one at a time and in order while partitions run in parallel.
+ * <p>
+ * Raising the count moves about 1/N of the SKUs to the new queues; events already queued for them
+ * finish on the old partition, so the order of those SKUs may break once during the switch.
+ * Lowering it leaves the surplus queues bound: remove them once they are empty.
+ * <p>
+ * A failed event is retried in the partition it came from (see {@link ProductEventRetryConfig}), so
+ * a SKU is never handled by two threads at once. It does rejoin at the tail, behind whatever arrived
+ * for that SKU during its delay: consumers must not rely on a retried event preceding later ones.
+ */
+@Slf4j
+@Configuration
+public class ProductEventPartitionsConfig implements RabbitListenerConfigurer {
+
+    private final ProductCreatedListener productCreatedListener;
+    private final SimpleRabbitListenerContainerFactory batchContainerFactory;
+    private final BeanFactory beanFactory;
+    private final int partitions;
+
+    public ProductEventPartitionsConfig(ProductCreatedListener productCreatedListener,
+                                        @Qualifier(RabbitMQConfig.BATCH_CONTAINER_FACTORY)
+                                        SimpleRabbitListenerContainerFactory batchContainerFactory,
+                                        BeanFactory beanFactory,
+                                        @Value("${inventory.partitions.count:8}") int partitions) {
+        this.productCreatedListener = productCreatedListener;
+        this.batchContainerFactory = batchContainerFactory;
+        this.beanFactory = beanFactory;
+        this.partitions = partitions;
+    }
+
+    @Bean
+    public Declarables productEventPartitions() {
+        CustomExchange exchange = new CustomExchange(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE,
+                RabbitMQConfig.CONSISTENT_HASH_EXCHANGE_TYPE, true, false);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(exchange);
+        for (String queueName : RabbitMQConfig.partitionQueueNames(partitions)) {
+            Queue queue = QueueBuilder.durable(queueName)
+                    .singleActiveConsumer()
+                    // Messages the container rejects outright (undecodable) are kept, not dropped
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(RabbitMQConfig.PRODUCT_CREATED_DLQ)
+                    .build();
+            declarables.add(queue);
+            // For this exchange type the binding key is the weight: equal shares of the hash ring
+            Binding binding = BindingBuilder.bind(queue).to(exchange).with("1").noargs();
+            declarables.add(binding);
+        }
+        return new Declarables(declarables);
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.setBeanFactory(beanFactory);
+        handlerMethodFactory.afterPropertiesSet();
+
+        List<String> queueNames = RabbitMQConfig.partitionQueueNames(partitions);
+        IntStream.range(0, partitions).forEach(partition -> {
+            MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+            endpoint.setId("product-events-partition-" + partition);
+            endpoint.setQueueNames(queueNames.get(partition));
+            endpoint.setBean(productCreatedListener);
+            endpoint.setMethod(ProductCreatedListener.HANDLER_METHOD);
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            endpoint.setBatchListener(true);
+            // One thread per partition; more would reorder events of the same SKU
+            endpoint.setConcurrency("1");
+            registrar.registerEndpoint(endpoint, batchContainerFactory);
+        });
+
+        log.info("Consuming product events from {} partition queues", partitions);
+    }
+}
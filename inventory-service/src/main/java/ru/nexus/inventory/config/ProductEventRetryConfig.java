@@ -0,0 +1,45 @@
+package ru.nexus.inventory.config;
+
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.HeadersExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delayed retry without a plugin: one queue per back-off tier, no consumers, a TTL, and dead-lettering
+ * through the default exchange. A failed event is published to the delay exchange with its partition
+ * queue as the routing key; the header picks the tier, and on expiry the routing key sends it back to
+ * that same partition. The delay is spent on the broker, not on a consumer thread.
+ */
+@Configuration
+public class ProductEventRetryConfig {
+
+    @Bean
+    public Declarables productEventRetryTopology(
+            @Value("${inventory.listener.product-created.retry-delays:1s,10s,1m}") List<Duration> retryDelays) {
+        HeadersExchange delayExchange = new HeadersExchange(RabbitMQConfig.PRODUCT_CREATED_DELAY_EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(delayExchange);
+        for (Duration delay : retryDelays) {
+            Queue tier = QueueBuilder.durable(RabbitMQConfig.retryTierQueueName(delay))
+                    .ttl((int) delay.toMillis())
+                    // No routing key override: expired messages keep the partition queue they were sent with
+                    .deadLetterExchange("")
+                    .build();
+            declarables.add(tier);
+            declarables.add(BindingBuilder.bind(tier).to(delayExchange)
+                    .where(RabbitMQConfig.PRODUCT_CREATED_DELAY_HEADER).matches(RabbitMQConfig.retryTier(delay)));
+        }
+        declarables.add(QueueBuilder.durable(RabbitMQConfig.PRODUCT_CREATED_DLQ).build());
+        return new Declarables(declarables);
+    }
+}
@@ -1,17 +1,74 @@
 package ru.nexus.inventory.config;
 
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.nexus.common.event.codec.EventMessageConverter;
+import ru.nexus.common.event.codec.EventSchemas;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
 
 @Configuration
 public class RabbitMQConfig {
 
-    public static final String PRODUCT_CREATED_QUEUE = "product.created.queue";
+    // Declared by product-service; hashes the SKU routing key onto the partition queues bound here
+    public static final String PRODUCT_EVENTS_EXCHANGE = "product.events";
+    public static final String CONSISTENT_HASH_EXCHANGE_TYPE = "x-consistent-hash";
+    public static final String PRODUCT_EVENTS_PARTITION_QUEUE_PREFIX = "product.events.partition.";
+    // Failed product events wait in a TTL tier queue picked by header, then expire back into their partition
+    public static final String PRODUCT_CREATED_DELAY_EXCHANGE = "inventory.product-created.delay";
+    public static final String PRODUCT_CREATED_DELAY_HEADER = "x-retry-delay";
+    public static final String PRODUCT_CREATED_DELAY_QUEUE_PREFIX = "inventory.product-created.delay.";
+    public static final String PRODUCT_CREATED_DLQ = "inventory.product-created.dlq";
+    public static final String BATCH_CONTAINER_FACTORY = "batchContainerFactory";
 
+    // Picks JSON or the binary event codec by content type, so producers can switch format any time
     @Bean
     public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+        return new EventMessageConverter(EventSchemas.defaults(), new Jackson2JsonMessageConverter(),
+                EventMessageConverter.Format.JSON);
+    }
+
+    public static String retryTier(Duration delay) {
+        return delay.toMillis() + "ms";
+    }
+
+    public static String retryTierQueueName(Duration delay) {
+        // The TTL is part of the name: a queue's arguments can't change once declared
+        return PRODUCT_CREATED_DELAY_QUEUE_PREFIX + retryTier(delay);
+    }
+
+    public static List<String> partitionQueueNames(int partitions) {
+        return IntStream.range(0, partitions)
+                .mapToObj(partition -> PRODUCT_EVENTS_PARTITION_QUEUE_PREFIX + partition)
+                .toList();
+    }
+
+    // Delivers messages to the listener in lists; each batch is acked once the listener returns
+    @Bean(name = BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${inventory.listener.product-created.batch-size:100}") int batchSize,
+            @Value("${inventory.listener.product-created.receive-timeout:200ms}") Duration receiveTimeout,
+            @Value("${inventory.listener.product-created.prefetch:250}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        // A batch can only fill up if the broker lets that many messages in flight
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        // Parallelism comes from partitions, each with a single consumer (see ProductEventPartitionsConfig)
+        factory.setConcurrentConsumers(1);
+        return factory;
     }
 }
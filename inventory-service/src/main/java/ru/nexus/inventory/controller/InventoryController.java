@@ -1,13 +1,30 @@
 package ru.nexus.inventory.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import ru.nexus.inventory.dto.DeadLetterReplayResponse;
+import ru.nexus.inventory.dto.InventoryImportResponse;
 import ru.nexus.inventory.dto.InventoryRequest;
 import ru.nexus.inventory.dto.InventoryResponse;
+import ru.nexus.inventory.dto.ReservationRequest;
+import ru.nexus.inventory.dto.ReservationResponse;
+import ru.nexus.inventory.dto.StripingRequest;
+import ru.nexus.inventory.service.DeadLetterReplayService;
+import ru.nexus.inventory.service.InventoryImportService;
 import ru.nexus.inventory.service.InventoryService;
+import ru.nexus.inventory.service.ReservationService;
+import ru.nexus.inventory.service.StockDeltaCoalescer;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/inventory")
@@ -15,6 +32,10 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockDeltaCoalescer stockDeltaCoalescer;
+    private final ReservationService reservationService;
+    private final InventoryImportService inventoryImportService;
+    private final DeadLetterReplayService deadLetterReplayService;
 
     // --- КЛИЕНТСКИЙ API (Витрина) ---
 
@@ -46,6 +67,27 @@ public class InventoryController {
         inventoryService.reserveStock(request);
     }
 
+    // Временная бронь с TTL (снимается автоматически по истечении)
+    @PostMapping("/reservations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ReservationResponse createReservation(@RequestBody @Valid ReservationRequest request) {
+        return reservationService.createReservation(request);
+    }
+
+    // Подтверждение брони (товар списан окончательно)
+    @PostMapping("/reservations/{reservationId}/confirm")
+    @ResponseStatus(HttpStatus.OK)
+    public void confirmReservation(@PathVariable UUID reservationId) {
+        reservationService.confirmReservation(reservationId);
+    }
+
+    // Отмена брони (товар возвращается на склад)
+    @DeleteMapping("/reservations/{reservationId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void releaseReservation(@PathVariable UUID reservationId) {
+        reservationService.releaseReservation(reservationId);
+    }
+
 
     // --- АДМИНСКИЙ API ---
 
@@ -57,8 +99,8 @@ public class InventoryController {
 
     // Приход/Списание через дельту
     @PostMapping("/adjust")
-    public void adjustStock(@RequestBody InventoryRequest request) {
-        inventoryService.adjustStock(request.getSkuCode(), request.getQuantity());
+    public CompletableFuture<Void> adjustStock(@RequestBody InventoryRequest request) {
+        return stockDeltaCoalescer.submit(request.getSkuCode(), request.getQuantity());
     }
 
     @PutMapping("/set-balance")
@@ -66,6 +108,30 @@ public class InventoryController {
         inventoryService.updateInventory(request);
     }
 
+    // Разбиение горячего SKU на бакеты (1 = обычный режим)
+    @PutMapping("/striping/{skuCode}")
+    public InventoryResponse configureStripes(@PathVariable String skuCode,
+                                              @RequestBody @Valid StripingRequest request) {
+        return inventoryService.configureStripes(skuCode, request);
+    }
+
+    // Массовая загрузка остатков (CSV или NDJSON, потоком через COPY)
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public InventoryImportResponse importStock(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                               @RequestParam(defaultValue = "true") boolean header,
+                                               InputStream body) throws SQLException, IOException {
+        if (MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return inventoryImportService.importNdjson(body);
+        }
+        return inventoryImportService.importCsv(body, header);
+    }
+
+    // Повторная обработка событий из DLQ (после устранения причины сбоя)
+    @PostMapping("/dead-letters/product-created/replay")
+    public DeadLetterReplayResponse replayDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        return deadLetterReplayService.replayProductCreated(limit);
+    }
+
     // Удаление записи
     @DeleteMapping("/{skuCode}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -0,0 +1,18 @@
+package ru.nexus.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterReplayResponse {
+    private int replayed;
+    // Left in the dead-letter queue: the partition queue they came from no longer exists
+    private int skipped;
+    // Still in the dead-letter queue after this call
+    private long remaining;
+}
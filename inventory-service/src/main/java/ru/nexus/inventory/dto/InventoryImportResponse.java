@@ -0,0 +1,16 @@
+package ru.nexus.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryImportResponse {
+    private long inserted;
+    private long updated;
+    private long rejected;
+}
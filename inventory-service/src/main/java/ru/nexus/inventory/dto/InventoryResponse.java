@@ -14,4 +14,7 @@ public class InventoryResponse {
     private Integer quantity;
     private boolean isInStock;
     private Integer version;
+    private Integer stripes;
+    // Held by active reservations, already excluded from quantity
+    private Integer reserved;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.nexus.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationRequest {
+    @NotEmpty(message = "Reservation must contain at least one item")
+    private List<@Valid InventoryRequest> items;
+
+    @Min(value = 1, message = "TTL must be at least one second")
+    @Max(value = 86400, message = "TTL cannot exceed one day")
+    private Long ttlSeconds;
+}
@@ -0,0 +1,20 @@
+package ru.nexus.inventory.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StripingRequest {
+    @NotNull(message = "Stripes count is required")
+    @Min(value = 1, message = "Stripes count must be at least 1")
+    @Max(value = 64, message = "Stripes count cannot exceed 64")
+    private Integer stripes;
+}
@@ -12,4 +12,5 @@ public class Inventory {
     private String skuCode;
     private Integer quantity;
     private Integer version;
+    private Integer stripes;
 }
\ No newline at end of file
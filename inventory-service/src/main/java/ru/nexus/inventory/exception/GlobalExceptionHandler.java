@@ -105,4 +105,36 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
         return problem;
     }
+
+    @ExceptionHandler(StockReservationException.class)
+    public ProblemDetail handleStockReservation(StockReservationException ex) {
+        log.warn("Reservation rejected: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.NOT_FOUND,
+                "Some products are missing or not enough in stock"
+        );
+        problem.setTitle("Reservation Rejected");
+        problem.setType(URI.create("https://api.nexus.ru/errors/not-found"));
+        problem.setProperty("missingSkuCodes", ex.getMissingSkuCodes());
+        problem.setProperty("insufficientSkuCodes", ex.getInsufficientSkuCodes());
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ProblemDetail handleReservationNotFound(ReservationNotFoundException ex) {
+        log.warn("Reservation not found: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.NOT_FOUND,
+                ex.getMessage()
+        );
+        problem.setTitle("Reservation Not Found");
+        problem.setType(URI.create("https://api.nexus.ru/errors/not-found"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
 }
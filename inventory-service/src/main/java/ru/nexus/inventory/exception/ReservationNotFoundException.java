@@ -0,0 +1,7 @@
+package ru.nexus.inventory.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String id) {
+        super("Reservation with ID: " + id + " not found or expired");
+    }
+}
@@ -0,0 +1,17 @@
+package ru.nexus.inventory.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class StockReservationException extends RuntimeException {
+    private final List<String> missingSkuCodes;
+    private final List<String> insufficientSkuCodes;
+
+    public StockReservationException(List<String> missingSkuCodes, List<String> insufficientSkuCodes) {
+        super("Reservation rejected. Missing: " + missingSkuCodes + ", insufficient: " + insufficientSkuCodes);
+        this.missingSkuCodes = missingSkuCodes;
+        this.insufficientSkuCodes = insufficientSkuCodes;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.nexus.inventory.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.nexus.inventory.config.RabbitMQConfig;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Sends failed product events to the next back-off tier, or to the dead-letter queue once the tiers
+ * are used up or when retrying can't help (poison: undecodable, invalid, rejected by a constraint).
+ * The attempt count travels with the message in a header.
+ * <p>
+ * The listener acks the originals once {@link #routeAll} returns, so it returns only after the
+ * broker has confirmed every copy; if it throws, the batch is redelivered instead of lost.
+ */
+@Slf4j
+@Component
+public class FailedMessageRouter {
+
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+    public static final String FAILURE_REASON_HEADER = "x-failure-reason";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+
+    private static final String REASON_POISON = "poison";
+    private static final String REASON_EXHAUSTED = "retries-exhausted";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final List<Duration> retryDelays;
+    private final Duration confirmTimeout;
+    private final List<Counter> retriedPerTier;
+    private final Counter poison;
+    private final Counter exhausted;
+
+    public FailedMessageRouter(RabbitTemplate rabbitTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.listener.product-created.retry-delays:1s,10s,1m}") List<Duration> retryDelays,
+                               @Value("${inventory.listener.product-created.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryDelays = List.copyOf(retryDelays);
+        this.confirmTimeout = confirmTimeout;
+        this.retriedPerTier = retryDelays.stream()
+                .map(delay -> Counter.builder("inventory.product_created.retried")
+                        .description("Events sent to a retry tier")
+                        .tag("tier", delay.toString())
+                        .register(meterRegistry))
+                .toList();
+        this.poison = deadLettered(meterRegistry, REASON_POISON);
+        this.exhausted = deadLettered(meterRegistry, REASON_EXHAUSTED);
+    }
+
+    public record Failure(Message message, Throwable error) {
+    }
+
+    /**
+     * Publishes every failure over one channel and waits once for the broker to confirm them all.
+     */
+    public void routeAll(List<Failure> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        List<Counter> routed = rabbitTemplate.invoke(operations -> {
+            List<Counter> counters = failures.stream()
+                    .map(failure -> route(operations, failure.message(), failure.error()))
+                    .toList();
+            operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+            return counters;
+        });
+        if (routed != null) {
+            routed.forEach(Counter::increment);
+        }
+    }
+
+    private Counter route(RabbitOperations operations, Message message, Throwable error) {
+        if (isPoison(error)) {
+            send(operations, message, error, REASON_POISON);
+            return poison;
+        }
+        MessageProperties properties = message.getMessageProperties();
+        Object attemptHeader = properties.getHeader(ATTEMPT_HEADER);
+        int attempt = attemptHeader instanceof Number number ? number.intValue() : 0;
+        if (attempt >= retryDelays.size() || properties.getConsumerQueue() == null) {
+            send(operations, message, error, REASON_EXHAUSTED);
+            return exhausted;
+        }
+        properties.setHeader(ATTEMPT_HEADER, attempt + 1);
+        properties.setHeader(RabbitMQConfig.PRODUCT_CREATED_DELAY_HEADER, RabbitMQConfig.retryTier(retryDelays.get(attempt)));
+        // The routing key is where the tier queue dead-letters it to once the delay is up
+        operations.send(RabbitMQConfig.PRODUCT_CREATED_DELAY_EXCHANGE, properties.getConsumerQueue(), persistent(message));
+        return retriedPerTier.get(attempt);
+    }
+
+    /**
+     * Poison when the failure would repeat however often the message is retried. Unknown failures
+     * are retried: the tiers bound the cost, and the DLQ catches them after the last one.
+     */
+    public static boolean isPoison(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    // A connection failure is "non-transient" to Spring, but it is exactly the blip to wait out
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return false;
+            }
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MessageConversionException
+                    || cause instanceof IllegalArgumentException
+                    || cause instanceof ClassCastException
+                    || cause instanceof NonTransientDataAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void send(RabbitOperations operations, Message message, Throwable error, String reason) {
+        MessageProperties properties = message.getMessageProperties();
+        properties.setHeader(FAILURE_REASON_HEADER, reason);
+        properties.setHeader(EXCEPTION_TYPE_HEADER, error.getClass().getName());
+        properties.setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(error.getMessage()));
+        properties.getHeaders().remove(RabbitMQConfig.PRODUCT_CREATED_DELAY_HEADER);
+        if (properties.getConsumerQueue() != null) {
+            properties.setHeader(ORIGINAL_QUEUE_HEADER, properties.getConsumerQueue());
+        }
+        operations.send("", RabbitMQConfig.PRODUCT_CREATED_DLQ, persistent(message));
+        log.warn("Dead-lettered product event ({}): {}", reason, error.getMessage());
+    }
+
+    private static Message persistent(Message message) {
+        // Received messages only carry receivedDeliveryMode; without this the copy would be transient
+        message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        return message;
+    }
+
+    private static Counter deadLettered(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("inventory.product_created.dead_lettered")
+                .description("Events sent to the dead-letter queue")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
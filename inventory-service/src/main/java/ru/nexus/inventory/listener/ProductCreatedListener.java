@@ -1,28 +1,153 @@
 package ru.nexus.inventory.listener;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 import ru.nexus.common.event.ProductCreatedEvent;
 import ru.nexus.inventory.config.RabbitMQConfig;
+import ru.nexus.inventory.listener.FailedMessageRouter.Failure;
 import ru.nexus.inventory.service.InventoryService;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class ProductCreatedListener {
 
+    public static final Method HANDLER_METHOD =
+            ReflectionUtils.findMethod(ProductCreatedListener.class, "handleProductCreated", List.class);
+
     private final InventoryService inventoryService;
+    private final MessageConverter messageConverter;
+    private final FailedMessageRouter failedMessageRouter;
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+    private final Counter initialized;
+    private final AmqpAdmin amqpAdmin;
+    // Filled by refreshQueueDepths, so a scrape never waits on the broker
+    private final Map<String, Double> queueDepths = new ConcurrentHashMap<>();
+
+    public ProductCreatedListener(InventoryService inventoryService,
+                                  MessageConverter messageConverter,
+                                  FailedMessageRouter failedMessageRouter,
+                                  MeterRegistry meterRegistry,
+                                  AmqpAdmin amqpAdmin,
+                                  @Value("${inventory.partitions.count:8}") int partitions) {
+        this.inventoryService = inventoryService;
+        this.messageConverter = messageConverter;
+        this.failedMessageRouter = failedMessageRouter;
+        this.amqpAdmin = amqpAdmin;
+        this.batchSize = DistributionSummary.builder("inventory.product_created.batch.size")
+                .description("Events per consumed batch")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("inventory.product_created.batch.duration")
+                .description("Time to write one batch of initial stock")
+                .register(meterRegistry);
+        this.initialized = Counter.builder("inventory.product_created.initialized")
+                .description("Stock records created from events")
+                .register(meterRegistry);
+        for (String queueName : RabbitMQConfig.partitionQueueNames(partitions)) {
+            queueDepths.put(queueName, Double.NaN);
+            Gauge.builder("inventory.product_created.queue.depth", queueDepths, depths -> depths.get(queueName))
+                    .description("Messages waiting in a product events partition queue")
+                    .tag("queue", queueName)
+                    .register(meterRegistry);
+        }
+        queueDepths.put(RabbitMQConfig.PRODUCT_CREATED_DLQ, Double.NaN);
+        Gauge.builder("inventory.product_created.dlq.depth", queueDepths,
+                        depths -> depths.get(RabbitMQConfig.PRODUCT_CREATED_DLQ))
+                .description("Events waiting in the dead-letter queue for replay")
+                .register(meterRegistry);
+    }
+
+    // Registered once per partition queue by ProductEventPartitionsConfig; retried events come back there too.
+    // Takes raw messages so one undecodable event is dead-lettered alone instead of failing the batch.
+    public void handleProductCreated(List<Message> messages) {
+        log.info("Received batch of {} ProductCreatedEvents", messages.size());
+        batchSize.record(messages.size());
+
+        List<ReceivedEvent> events = new ArrayList<>(messages.size());
+        List<Failure> failures = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                if (!(messageConverter.fromMessage(message) instanceof ProductCreatedEvent event)) {
+                    throw new MessageConversionException("Not a ProductCreatedEvent");
+                }
+                if (event.getSkuCode() == null || event.getSkuCode().isBlank()) {
+                    throw new IllegalArgumentException("ProductCreatedEvent without a skuCode");
+                }
+                events.add(new ReceivedEvent(message, event.getSkuCode()));
+            } catch (RuntimeException e) {
+                failures.add(new Failure(message, e));
+            }
+        }
+        if (!events.isEmpty()) {
+            initStock(events, failures);
+        }
+        // Throws unless the broker confirmed every copy, and the container then redelivers the batch
+        failedMessageRouter.routeAll(failures);
+    }
 
-    @RabbitListener(queues = RabbitMQConfig.PRODUCT_CREATED_QUEUE)
-    public void handleProductCreated(ProductCreatedEvent event) {
-        log.info("Received ProductCreatedEvent for SKU: {}", event.getSkuCode());
+    private void initStock(List<ReceivedEvent> events, List<Failure> failures) {
+        List<String> skuCodes = events.stream()
+                .map(ReceivedEvent::skuCode)
+                .toList();
         try {
-            inventoryService.initStock(event.getSkuCode());
-            log.info("Successfully initialized stock for SKU: {}", event.getSkuCode());
+            int created = batchDuration.recordCallable(() -> inventoryService.initStock(skuCodes));
+            initialized.increment(created);
+            log.info("Initialized stock for {} of {} SKUs, the rest already existed", created, skuCodes.size());
         } catch (Exception e) {
-            log.error("Error processing ProductCreatedEvent for SKU: {}. Error: {}", event.getSkuCode(), e.getMessage());
+            if (!FailedMessageRouter.isPoison(e)) {
+                log.warn("Transient failure for a batch of {} SKUs, scheduling retry. Error: {}", skuCodes.size(), e.getMessage());
+                events.forEach(event -> failures.add(new Failure(event.message(), e)));
+                return;
+            }
+            // One bad SKU fails the whole statement: redo the batch one by one to find it
+            for (ReceivedEvent event : events) {
+                try {
+                    initialized.increment(inventoryService.initStock(List.of(event.skuCode())));
+                } catch (Exception single) {
+                    failures.add(new Failure(event.message(), single));
+                }
+            }
         }
     }
+
+    /**
+     * Polls the broker for the depth gauges, one passive declare per queue.
+     */
+    @Scheduled(fixedDelayString = "${inventory.listener.product-created.depth-refresh-interval:15s}")
+    public void refreshQueueDepths() {
+        queueDepths.replaceAll((queueName, depth) -> queueDepth(queueName));
+    }
+
+    private double queueDepth(String queueName) {
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(queueName);
+            return info != null ? info.getMessageCount() : Double.NaN;
+        } catch (AmqpException e) {
+            log.debug("Could not read depth of queue {}: {}", queueName, e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    private record ReceivedEvent(Message message, String skuCode) {
+    }
 }
@@ -0,0 +1,98 @@
+package ru.nexus.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryBucketRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int addToBucket(String skuCode, int bucket, int quantity) {
+        String sql = "UPDATE t_inventory_bucket SET quantity = quantity + ? WHERE sku_code = ? AND bucket = ?";
+        return jdbcTemplate.update(sql, quantity, skuCode, bucket);
+    }
+
+    public int takeFromBucket(String skuCode, int bucket, int quantity) {
+        String sql = "UPDATE t_inventory_bucket SET quantity = quantity - ? WHERE sku_code = ? AND bucket = ? AND quantity >= ?";
+        return jdbcTemplate.update(sql, quantity, skuCode, bucket, quantity);
+    }
+
+    /**
+     * Takes the whole quantity from the fullest bucket that can cover it, skipping buckets
+     * other transactions are holding right now.
+     */
+    public int takeFromAnyBucket(String skuCode, int quantity) {
+        String sql = """
+                UPDATE t_inventory_bucket b
+                SET quantity = b.quantity - ?
+                WHERE b.sku_code = ? AND b.quantity >= ? AND b.bucket = (
+                    SELECT bucket FROM t_inventory_bucket
+                    WHERE sku_code = ? AND quantity >= ?
+                    ORDER BY quantity DESC
+                    LIMIT 1
+                    FOR UPDATE SKIP LOCKED
+                )
+                """;
+        return jdbcTemplate.update(sql, quantity, skuCode, quantity, skuCode, quantity);
+    }
+
+    /**
+     * Last resort when no single bucket can cover the quantity: locks every bucket in order
+     * and drains them one after another, or changes nothing if their total is too small.
+     */
+    public int takeAcrossBuckets(String skuCode, int quantity) {
+        String sql = """
+                WITH locked AS (
+                    SELECT bucket, quantity FROM t_inventory_bucket
+                    WHERE sku_code = ?
+                    ORDER BY bucket
+                    FOR UPDATE
+                ),
+                plan AS (
+                    SELECT bucket, quantity,
+                           SUM(quantity) OVER (ORDER BY bucket) AS running,
+                           SUM(quantity) OVER () AS total
+                    FROM locked
+                )
+                UPDATE t_inventory_bucket b
+                SET quantity = LEAST(p.quantity, GREATEST(p.running - ?, 0))
+                FROM plan p
+                WHERE b.sku_code = ? AND b.bucket = p.bucket
+                  AND p.total >= ? AND p.running - p.quantity < ?
+                """;
+        return jdbcTemplate.update(sql, skuCode, quantity, skuCode, quantity, quantity);
+    }
+
+    public int lockTotal(String skuCode) {
+        String sql = """
+                SELECT COALESCE(SUM(quantity), 0) FROM (
+                    SELECT quantity FROM t_inventory_bucket
+                    WHERE sku_code = ?
+                    ORDER BY bucket
+                    FOR UPDATE
+                ) b
+                """;
+        Integer total = jdbcTemplate.queryForObject(sql, Integer.class, skuCode);
+        return total != null ? total : 0;
+    }
+
+    public int deleteBuckets(String skuCode) {
+        String sql = "DELETE FROM t_inventory_bucket WHERE sku_code = ?";
+        return jdbcTemplate.update(sql, skuCode);
+    }
+
+    /**
+     * Spreads {@code total} evenly over {@code buckets} new rows, the remainder going to the first ones.
+     */
+    public void distribute(String skuCode, int total, int buckets) {
+        String sql = """
+                INSERT INTO t_inventory_bucket (sku_code, bucket, quantity)
+                SELECT ?, g, ? / ? + CASE WHEN g < ? % ? THEN 1 ELSE 0 END
+                FROM generate_series(0, ? - 1) AS g
+                """;
+        jdbcTemplate.update(sql, skuCode, total, buckets, total, buckets, buckets);
+    }
+}
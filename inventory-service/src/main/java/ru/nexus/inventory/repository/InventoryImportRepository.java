@@ -0,0 +1,119 @@
+package ru.nexus.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk stock loading: rows are streamed into a temporary staging table with COPY and merged
+ * into t_inventory in one statement. Must run inside a transaction, the staging table lives
+ * on the transaction's connection and is dropped on commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryImportRepository {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createStagingTable() {
+        jdbcTemplate.execute("""
+                CREATE TEMP TABLE t_inventory_import (
+                    line_no BIGSERIAL,
+                    sku_code TEXT,
+                    quantity TEXT
+                ) ON COMMIT DROP
+                """);
+    }
+
+    /**
+     * Expects well-formed two-column CSV without a header, callers check the lines first:
+     * one malformed line would fail the whole COPY.
+     */
+    public long copyCsv(Reader csv) throws SQLException, IOException {
+        String sql = "COPY t_inventory_import (sku_code, quantity) FROM STDIN WITH (FORMAT csv)";
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return copyManager(connection).copyIn(sql, csv);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Validates the staged rows and upserts the last valid line of every SKU. Striped SKUs
+     * are left untouched and counted as rejected, their stock lives in the buckets.
+     * Imported values are stock on hand: units still held by reservations are subtracted,
+     * they were taken from quantity already and come back on release or expiry.
+     */
+    public ImportCounts mergeStaged() {
+        // Rows are locked before the merge reads the holds, so no release or sweep slips in between.
+        // A separate statement, the merge needs a snapshot taken after the locks; only a count comes back.
+        jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM (
+                    SELECT 1 FROM t_inventory i
+                    WHERE i.sku_code IN (SELECT btrim(sku_code) FROM t_inventory_import)
+                    ORDER BY i.id
+                    FOR UPDATE
+                ) l
+                """, Long.class);
+
+        String sql = """
+                WITH checked AS (
+                    SELECT line_no, btrim(sku_code) AS sku_code, btrim(quantity) AS quantity,
+                           COALESCE(btrim(sku_code) <> ''
+                                    AND length(btrim(sku_code)) <= 255
+                                    AND btrim(quantity) ~ '^[0-9]{1,9}$', false) AS valid
+                    FROM t_inventory_import
+                ),
+                latest AS (
+                    SELECT DISTINCT ON (sku_code) sku_code, quantity::int AS quantity
+                    FROM checked
+                    WHERE valid
+                    ORDER BY sku_code, line_no DESC
+                ),
+                held AS (
+                    SELECT r.sku_code, SUM(r.quantity) AS quantity
+                    FROM t_stock_reservation r
+                    JOIN latest l ON l.sku_code = r.sku_code
+                    GROUP BY r.sku_code
+                ),
+                merged AS (
+                    INSERT INTO t_inventory AS i (sku_code, quantity, version)
+                    SELECT sku_code, quantity, 0 FROM latest
+                    ORDER BY sku_code
+                    ON CONFLICT (sku_code) DO UPDATE
+                    SET quantity = GREATEST(EXCLUDED.quantity
+                                            - COALESCE((SELECT h.quantity FROM held h WHERE h.sku_code = EXCLUDED.sku_code), 0), 0),
+                        version = i.version + 1
+                    WHERE i.stripes = 1
+                    RETURNING (xmax = 0) AS inserted
+                )
+                SELECT (SELECT count(*) FROM merged WHERE inserted) AS inserted,
+                       (SELECT count(*) FROM merged WHERE NOT inserted) AS updated,
+                       (SELECT count(*) FROM checked WHERE NOT valid)
+                           + (SELECT count(*) FROM latest)
+                           - (SELECT count(*) FROM merged) AS rejected
+                """;
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new ImportCounts(
+                rs.getLong("inserted"),
+                rs.getLong("updated"),
+                rs.getLong("rejected")));
+    }
+
+    private CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    public record ImportCounts(long inserted, long updated, long rejected) {
+    }
+}
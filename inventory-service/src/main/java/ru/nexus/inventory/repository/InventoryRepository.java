@@ -3,6 +3,7 @@ package ru.nexus.inventory.repository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -13,8 +14,10 @@ import ru.nexus.inventory.entity.Inventory;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -24,19 +27,45 @@ public class InventoryRepository {
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    // Striped SKUs keep their stock in t_inventory_bucket, so reads sum the buckets in
+    private static final String SELECT_INVENTORY = """
+            SELECT i.id, i.sku_code, i.version, i.stripes,
+                   i.quantity + CASE WHEN i.stripes > 1 THEN COALESCE(
+                       (SELECT SUM(b.quantity) FROM t_inventory_bucket b WHERE b.sku_code = i.sku_code), 0)
+                   ELSE 0 END AS quantity
+            FROM t_inventory i
+            """;
+
     private final RowMapper<Inventory> inventoryRowMapper = (rs, rowNum) -> Inventory.builder()
             .id(rs.getLong("id"))
             .skuCode(rs.getString("sku_code"))
             .quantity(rs.getInt("quantity"))
             .version(rs.getInt("version"))
+            .stripes(rs.getInt("stripes"))
             .build();
 
 
     public Optional<Inventory> findBySkuCode(String skuCode) {
-        String sql = "SELECT * FROM t_inventory WHERE sku_code = ? LIMIT 1";
+        String sql = SELECT_INVENTORY + " WHERE i.sku_code = ? LIMIT 1";
+        return jdbcTemplate.query(sql, inventoryRowMapper, skuCode).stream().findFirst();
+    }
+
+    /**
+     * Locks the row and returns its own quantity, without the stripe buckets.
+     */
+    public Optional<Inventory> findBySkuCodeForUpdate(String skuCode) {
+        String sql = "SELECT id, sku_code, quantity, version, stripes FROM t_inventory WHERE sku_code = ? FOR UPDATE";
         return jdbcTemplate.query(sql, inventoryRowMapper, skuCode).stream().findFirst();
     }
 
+    /**
+     * Share-locks the row, so the striping read stays valid until the transaction ends.
+     */
+    public Optional<Integer> findStripesForShare(String skuCode) {
+        String sql = "SELECT stripes FROM t_inventory WHERE sku_code = ? FOR SHARE";
+        return jdbcTemplate.queryForList(sql, Integer.class, skuCode).stream().findFirst();
+    }
+
     public boolean existsBySkuCode(String skuCode) {
         String sql = "SELECT count(*) FROM t_inventory WHERE sku_code = ?";
         Integer count = jdbcTemplate.queryForObject(sql, Integer.class, skuCode);
@@ -48,13 +77,31 @@ public class InventoryRepository {
             return Collections.emptyList();
         }
 
-        String sql = "SELECT id, sku_code, quantity, version FROM t_inventory WHERE sku_code IN (:skuCodes)";
+        String sql = SELECT_INVENTORY + " WHERE i.sku_code IN (:skuCodes)";
 
         var params = new MapSqlParameterSource("skuCodes", skuCodes);
 
         return namedParameterJdbcTemplate.query(sql, params, inventoryRowMapper);
     }
 
+    public int insertMissing(Collection<String> skuCodes) {
+        String sql = """
+                INSERT INTO t_inventory (sku_code, quantity, version)
+                SELECT DISTINCT s.sku_code, 0, 0
+                FROM unnest(?::text[]) AS s(sku_code)
+                WHERE s.sku_code IS NOT NULL
+                ORDER BY s.sku_code
+                ON CONFLICT (sku_code) DO NOTHING
+                """;
+        String[] skuCodeArray = skuCodes.toArray(String[]::new);
+
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", skuCodeArray));
+            return ps;
+        });
+    }
+
     public void saveInventory(Inventory inventory) {
         if (inventory.getId() == null) {
             insert(inventory);
@@ -95,11 +142,174 @@ public class InventoryRepository {
     }
 
     public int updateQuantity(String skuCode, Integer delta) {
-        String sql = "UPDATE t_inventory SET quantity = quantity + ? WHERE sku_code = ? AND (quantity + ?) >= 0";
+        String sql = "UPDATE t_inventory SET quantity = quantity + ? WHERE sku_code = ? AND stripes = 1 AND (quantity + ?) >= 0";
 
         return jdbcTemplate.update(sql, delta, skuCode, delta);
     }
 
+    public int updateStriping(String skuCode, int quantity, int stripes) {
+        String sql = "UPDATE t_inventory SET quantity = ?, stripes = ?, version = version + 1 WHERE sku_code = ?";
+        return jdbcTemplate.update(sql, quantity, stripes, skuCode);
+    }
+
+    /**
+     * Reserves the whole cart in one statement: rows are locked in id order and
+     * updated only if every SKU exists and has enough stock, otherwise nothing changes.
+     * Striped rows are only share-locked, so their striping cannot change before the
+     * caller takes their lines, which come back with {@code stripes > 1}, from the buckets.
+     * Returns one line per requested SKU so the caller can tell missing from short.
+     */
+    public List<ReservationLine> reserveAll(Map<String, Integer> quantitiesBySku) {
+        String sql = """
+                WITH req AS (
+                    SELECT r.sku_code, SUM(r.qty) AS qty
+                    FROM unnest(?::text[], ?::int[]) AS r(sku_code, qty)
+                    GROUP BY r.sku_code
+                ),
+                locked AS (
+                    SELECT i.id, i.sku_code, i.quantity, req.qty
+                    FROM t_inventory i
+                    JOIN req ON req.sku_code = i.sku_code
+                    WHERE i.stripes = 1
+                    ORDER BY i.id
+                    FOR UPDATE OF i
+                ),
+                striped AS (
+                    SELECT i.sku_code, i.stripes
+                    FROM t_inventory i
+                    JOIN req ON req.sku_code = i.sku_code
+                    WHERE i.stripes > 1
+                    ORDER BY i.id
+                    FOR SHARE OF i
+                ),
+                verdict AS (
+                    SELECT (SELECT count(*) FROM locked) + (SELECT count(*) FROM striped) = (SELECT count(*) FROM req)
+                           AND COALESCE(bool_and(quantity >= qty), true) AS ok
+                    FROM locked
+                ),
+                upd AS (
+                    UPDATE t_inventory i
+                    SET quantity = i.quantity - l.qty
+                    FROM locked l, verdict v
+                    WHERE i.id = l.id AND v.ok
+                    RETURNING i.id
+                )
+                SELECT req.sku_code, req.qty AS requested, l.quantity AS available,
+                       COALESCE(s.stripes, 1) AS stripes, v.ok AS reserved
+                FROM req
+                LEFT JOIN locked l ON l.sku_code = req.sku_code
+                LEFT JOIN striped s ON s.sku_code = req.sku_code
+                CROSS JOIN verdict v
+                """;
+
+        return jdbcTemplate.query(arrayStatement(sql, quantitiesBySku), (rs, rowNum) -> new ReservationLine(
+                rs.getString("sku_code"),
+                rs.getInt("requested"),
+                rs.getObject("available", Integer.class),
+                rs.getInt("stripes"),
+                rs.getBoolean("reserved")));
+    }
+
+    /**
+     * Locks the rows in id order and returns their own quantity, without the stripe buckets.
+     */
+    public List<Inventory> lockAllBySkuCodes(Collection<String> skuCodes) {
+        String sql = "SELECT id, sku_code, quantity, version, stripes FROM t_inventory WHERE sku_code = ANY (?) ORDER BY id FOR UPDATE";
+        String[] skuCodeArray = skuCodes.toArray(String[]::new);
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", skuCodeArray));
+            return ps;
+        }, inventoryRowMapper);
+    }
+
+    /**
+     * Applies one net delta per SKU in a single statement. Callers check the resulting
+     * balance beforehand, under the locks taken by {@link #lockAllBySkuCodes}.
+     */
+    public int applyDeltas(Map<String, Integer> deltasBySku) {
+        String sql = """
+                UPDATE t_inventory i
+                SET quantity = i.quantity + d.delta
+                FROM unnest(?::text[], ?::int[]) AS d(sku_code, delta)
+                WHERE i.sku_code = d.sku_code
+                """;
+        return jdbcTemplate.update(arrayStatement(sql, deltasBySku));
+    }
+
+    /**
+     * Puts stock back in one statement: plain rows are locked in id order and incremented,
+     * striped SKUs get the quantity added to a random bucket. Striped rows are share-locked, so a
+     * balance being set under the row lock waits for the restock or the other way round.
+     */
+    public int restockAll(Map<String, Integer> quantitiesBySku) {
+        String sql = """
+                WITH ret AS (
+                    SELECT r.sku_code, r.qty
+                    FROM unnest(?::text[], ?::int[]) AS r(sku_code, qty)
+                ),
+                locked AS (
+                    SELECT i.id, ret.qty
+                    FROM t_inventory i
+                    JOIN ret ON ret.sku_code = i.sku_code
+                    WHERE i.stripes = 1
+                    ORDER BY i.id
+                    FOR UPDATE OF i
+                ),
+                plain AS (
+                    UPDATE t_inventory i
+                    SET quantity = i.quantity + l.qty
+                    FROM locked l
+                    WHERE i.id = l.id
+                    RETURNING i.id
+                ),
+                striped AS (
+                    UPDATE t_inventory_bucket b
+                    SET quantity = b.quantity + s.qty
+                    FROM (
+                        SELECT i.sku_code, ret.qty, floor(random() * i.stripes)::int AS bucket
+                        FROM t_inventory i
+                        JOIN ret ON ret.sku_code = i.sku_code
+                        WHERE i.stripes > 1
+                        FOR SHARE OF i
+                    ) s
+                    WHERE b.sku_code = s.sku_code AND b.bucket = s.bucket
+                    RETURNING b.sku_code
+                )
+                SELECT (SELECT count(*) FROM plain) + (SELECT count(*) FROM striped)
+                """;
+        Integer restocked = jdbcTemplate.query(arrayStatement(sql, quantitiesBySku),
+                rs -> rs.next() ? rs.getInt(1) : 0);
+        return restocked != null ? restocked : 0;
+    }
+
+    private PreparedStatementCreator arrayStatement(String sql, Map<String, Integer> valuesBySku) {
+        String[] skuCodes = valuesBySku.keySet().toArray(String[]::new);
+        Integer[] values = valuesBySku.values().toArray(Integer[]::new);
+
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("text", skuCodes));
+            ps.setArray(2, con.createArrayOf("int4", values));
+            return ps;
+        };
+    }
+
+    public record ReservationLine(String skuCode, int requested, Integer available, int stripes, boolean reserved) {
+        public boolean isStriped() {
+            return stripes > 1;
+        }
+
+        public boolean isMissing() {
+            return available == null && !isStriped();
+        }
+
+        public boolean isInsufficient() {
+            return available != null && available < requested;
+        }
+    }
+
     public int deleteBySkuCode(String skuCode) {
         String sql = "DELETE FROM t_inventory WHERE sku_code = ?";
         return jdbcTemplate.update(sql, skuCode);
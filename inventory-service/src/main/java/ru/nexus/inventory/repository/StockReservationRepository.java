@@ -0,0 +1,109 @@
+package ru.nexus.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class StockReservationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int insertAll(UUID reservationId, Map<String, Integer> quantitiesBySku, Instant expiresAt) {
+        String sql = """
+                INSERT INTO t_stock_reservation (reservation_id, sku_code, quantity, expires_at)
+                SELECT ?, r.sku_code, r.qty, ?
+                FROM unnest(?::text[], ?::int[]) AS r(sku_code, qty)
+                """;
+        String[] skuCodes = quantitiesBySku.keySet().toArray(String[]::new);
+        Integer[] quantities = quantitiesBySku.values().toArray(Integer[]::new);
+
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setObject(1, reservationId);
+            ps.setTimestamp(2, Timestamp.from(expiresAt));
+            ps.setArray(3, con.createArrayOf("text", skuCodes));
+            ps.setArray(4, con.createArrayOf("int4", quantities));
+            return ps;
+        });
+    }
+
+    /**
+     * Drops the holds of a reservation that has not expired yet, the stock stays taken.
+     */
+    public int deleteActive(UUID reservationId) {
+        String sql = "DELETE FROM t_stock_reservation WHERE reservation_id = ? AND expires_at > now()";
+        return jdbcTemplate.update(sql, reservationId);
+    }
+
+    /**
+     * Drops every hold of a reservation and returns the held quantity per SKU.
+     */
+    public Map<String, Integer> deleteAll(UUID reservationId) {
+        String sql = "DELETE FROM t_stock_reservation WHERE reservation_id = ? RETURNING sku_code, quantity";
+        Map<String, Integer> quantitiesBySku = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            quantitiesBySku.put(rs.getString("sku_code"), rs.getInt("quantity"));
+        }, reservationId);
+        return quantitiesBySku;
+    }
+
+    /**
+     * Deletes up to {@code limit} expired holds in one statement. Rows another node is
+     * sweeping are skipped rather than waited for, so sweepers never contend.
+     */
+    public ExpiredBatch deleteExpiredBatch(int limit) {
+        String sql = """
+                WITH expired AS (
+                    SELECT reservation_id, sku_code FROM t_stock_reservation
+                    WHERE expires_at <= now()
+                    ORDER BY expires_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                ),
+                removed AS (
+                    DELETE FROM t_stock_reservation r
+                    USING expired e
+                    WHERE r.reservation_id = e.reservation_id AND r.sku_code = e.sku_code
+                    RETURNING r.sku_code, r.quantity
+                )
+                SELECT sku_code, SUM(quantity) AS quantity, count(*) AS holds
+                FROM removed
+                GROUP BY sku_code
+                """;
+        Map<String, Integer> quantitiesBySku = new HashMap<>();
+        int[] holds = new int[1];
+        jdbcTemplate.query(sql, rs -> {
+            quantitiesBySku.put(rs.getString("sku_code"), rs.getInt("quantity"));
+            holds[0] += rs.getInt("holds");
+        }, limit);
+        return new ExpiredBatch(holds[0], quantitiesBySku);
+    }
+
+    public int sumActiveBySkuCode(String skuCode) {
+        String sql = "SELECT COALESCE(SUM(quantity), 0) FROM t_stock_reservation WHERE sku_code = ? AND expires_at > now()";
+        Integer total = jdbcTemplate.queryForObject(sql, Integer.class, skuCode);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Everything still held for a SKU, expired or not: each of these holds has been taken from
+     * quantity and goes back to it exactly once, on release or on the next sweep.
+     */
+    public int sumHeldBySkuCode(String skuCode) {
+        String sql = "SELECT COALESCE(SUM(quantity), 0) FROM t_stock_reservation WHERE sku_code = ?";
+        Integer total = jdbcTemplate.queryForObject(sql, Integer.class, skuCode);
+        return total != null ? total : 0;
+    }
+
+    public record ExpiredBatch(int holds, Map<String, Integer> quantitiesBySku) {
+    }
+}
@@ -0,0 +1,57 @@
+package ru.nexus.inventory.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nexus.inventory.repository.InventoryRepository;
+import ru.nexus.inventory.repository.StockReservationRepository;
+import ru.nexus.inventory.repository.StockReservationRepository.ExpiredBatch;
+
+/**
+ * Gives expired holds back to stock in batches. Every node runs it, SKIP LOCKED keeps them
+ * on disjoint rows, and each batch costs two statements no matter how many holds it covers.
+ */
+@Slf4j
+@Component
+public class ReservationExpirySweeper {
+    private final StockReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public ReservationExpirySweeper(StockReservationRepository reservationRepository,
+                                    InventoryRepository inventoryRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${inventory.reservation.sweep-batch-size:1000}") int batchSize,
+                                    @Value("${inventory.reservation.sweep-max-batches:50}") int maxBatches) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:5s}")
+    public void sweepExpired() {
+        int swept = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            Integer holds = transactionTemplate.execute(status -> {
+                ExpiredBatch batch = reservationRepository.deleteExpiredBatch(batchSize);
+                if (!batch.quantitiesBySku().isEmpty()) {
+                    inventoryRepository.restockAll(batch.quantitiesBySku());
+                }
+                return batch.holds();
+            });
+            swept += holds != null ? holds : 0;
+            if (holds == null || holds < batchSize) {
+                break;
+            }
+        }
+        if (swept > 0) {
+            log.info("Released {} expired stock holds", swept);
+        }
+    }
+}
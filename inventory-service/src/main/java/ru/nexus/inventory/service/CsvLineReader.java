@@ -0,0 +1,87 @@
+package ru.nexus.inventory.service;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks an uploaded {@code sku_code,quantity} CSV line by line before COPY sees it. Lines with
+ * a missing or extra column, or with broken quoting, are skipped and counted; a quoted field
+ * can't span lines. Values are passed through as text, the merge validates them.
+ */
+class CsvLineReader extends StagingCsvReader {
+
+    private static final int COLUMNS = 2;
+
+    private boolean skipHeader;
+
+    CsvLineReader(Reader source, boolean header) {
+        super(source);
+        this.skipHeader = header;
+    }
+
+    @Override
+    protected String toCsv(String line) {
+        if (skipHeader) {
+            skipHeader = false;
+            return "";
+        }
+        if (line.isBlank()) {
+            return "";
+        }
+        List<String> fields = split(line);
+        if (fields == null || fields.size() != COLUMNS) {
+            return reject();
+        }
+        return csvLine(fields.get(0), fields.get(1));
+    }
+
+    /**
+     * RFC 4180 fields of one line, or {@code null} if the quoting is broken.
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            field.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    return null;
+                }
+            } else {
+                while (i < length && line.charAt(i) != ',') {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        return null;
+                    }
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            if (i >= length) {
+                return fields;
+            }
+            if (fields.size() > COLUMNS) {
+                return fields;
+            }
+            i++;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.nexus.inventory.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.nexus.inventory.config.RabbitMQConfig;
+import ru.nexus.inventory.dto.DeadLetterReplayResponse;
+import ru.nexus.inventory.listener.FailedMessageRouter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves dead-lettered product events back to the partition queue they failed in once the cause is
+ * fixed, with a fresh set of retry tiers. Messages are acked on the DLQ only after the broker has
+ * confirmed their copies, so a failure half-way leaves them where they were. Events whose queue no
+ * longer exists (the partition count went down) stay in the DLQ.
+ */
+@Slf4j
+@Service
+public class DeadLetterReplayService {
+
+    private static final int CONFIRM_BATCH_SIZE = 100;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final Duration confirmTimeout;
+    private final Counter replayed;
+
+    public DeadLetterReplayService(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin, MeterRegistry meterRegistry,
+                                   @Value("${inventory.listener.product-created.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.confirmTimeout = confirmTimeout;
+        this.replayed = Counter.builder("inventory.product_created.replayed")
+                .description("Dead-lettered events sent back for processing")
+                .register(meterRegistry);
+    }
+
+    public DeadLetterReplayResponse replayProductCreated(int limit) {
+        Map<String, Boolean> queueExists = new HashMap<>();
+        int[] counts = rabbitTemplate.execute(channel -> {
+            int moved = 0;
+            int skipped = 0;
+            long lastSkipped = 0;
+            try {
+                while (moved + skipped < limit) {
+                    List<Long> batch = new ArrayList<>(CONFIRM_BATCH_SIZE);
+                    while (batch.size() < CONFIRM_BATCH_SIZE && moved + skipped + batch.size() < limit) {
+                        GetResponse response = channel.basicGet(RabbitMQConfig.PRODUCT_CREATED_DLQ, false);
+                        if (response == null) {
+                            break;
+                        }
+                        long tag = response.getEnvelope().getDeliveryTag();
+                        String queue = originalQueue(response.getProps());
+                        if (queue == null || !queueExists.computeIfAbsent(queue, name -> amqpAdmin.getQueueInfo(name) != null)) {
+                            // Held unacked until the end, so basicGet doesn't hand it out again
+                            lastSkipped = tag;
+                            skipped++;
+                            continue;
+                        }
+                        channel.basicPublish("", queue, freshProperties(response.getProps()), response.getBody());
+                        batch.add(tag);
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    confirmAndAck(channel, batch);
+                    moved += batch.size();
+                }
+            } finally {
+                if (lastSkipped > 0 && channel.isOpen()) {
+                    // Only skipped ones are still unacked here; everything else was acked or dies with the channel
+                    channel.basicNack(lastSkipped, true, true);
+                }
+            }
+            return new int[]{moved, skipped};
+        });
+        replayed.increment(counts[0]);
+
+        QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.PRODUCT_CREATED_DLQ);
+        long remaining = info != null ? info.getMessageCount() : 0;
+        log.info("Replayed {} dead-lettered product events, skipped {}, {} left", counts[0], counts[1], remaining);
+        return DeadLetterReplayResponse.builder()
+                .replayed(counts[0])
+                .skipped(counts[1])
+                .remaining(remaining)
+                .build();
+    }
+
+    private void confirmAndAck(Channel channel, List<Long> deliveryTags) throws IOException, InterruptedException, TimeoutException {
+        // Closes the channel on a nack or timeout, which puts every unacked message back in the DLQ
+        channel.waitForConfirmsOrDie(confirmTimeout.toMillis());
+        // One by one: a multiple ack would also take the skipped messages held in between
+        for (long deliveryTag : deliveryTags) {
+            channel.basicAck(deliveryTag, false);
+        }
+    }
+
+    /**
+     * The partition queue the event failed in: set by the listener's router, or recorded by the
+     * broker when the partition queue itself dead-lettered the message.
+     */
+    private static String originalQueue(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties.getHeaders();
+        if (headers == null) {
+            return null;
+        }
+        Object queue = headers.get(FailedMessageRouter.ORIGINAL_QUEUE_HEADER);
+        if (queue == null && headers.get("x-death") instanceof List<?> deaths && !deaths.isEmpty()
+                && deaths.getFirst() instanceof Map<?, ?> death) {
+            queue = death.get("queue");
+        }
+        return queue != null ? queue.toString() : null;
+    }
+
+    private static AMQP.BasicProperties freshProperties(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties.getHeaders() != null
+                ? new HashMap<>(properties.getHeaders())
+                : new HashMap<>();
+        headers.remove(FailedMessageRouter.ATTEMPT_HEADER);
+        headers.remove(FailedMessageRouter.FAILURE_REASON_HEADER);
+        headers.remove(FailedMessageRouter.EXCEPTION_TYPE_HEADER);
+        headers.remove(FailedMessageRouter.EXCEPTION_MESSAGE_HEADER);
+        headers.remove("x-death");
+        return properties.builder().headers(headers).build();
+    }
+}
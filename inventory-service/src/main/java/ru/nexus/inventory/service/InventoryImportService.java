@@ -0,0 +1,55 @@
+package ru.nexus.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.nexus.inventory.dto.InventoryImportResponse;
+import ru.nexus.inventory.repository.InventoryImportRepository;
+import ru.nexus.inventory.repository.InventoryImportRepository.ImportCounts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryImportService {
+    private final InventoryImportRepository importRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public InventoryImportResponse importCsv(InputStream csv, boolean header) throws SQLException, IOException {
+        long started = System.currentTimeMillis();
+        importRepository.createStagingTable();
+        CsvLineReader reader = new CsvLineReader(new InputStreamReader(csv, StandardCharsets.UTF_8), header);
+        long copied = importRepository.copyCsv(reader);
+        log.info("Staged {} CSV rows in {} ms, {} malformed", copied, System.currentTimeMillis() - started, reader.getRejected());
+        return merge(reader.getRejected(), started);
+    }
+
+    @Transactional
+    public InventoryImportResponse importNdjson(InputStream ndjson) throws SQLException, IOException {
+        long started = System.currentTimeMillis();
+        importRepository.createStagingTable();
+        NdjsonCsvReader reader = new NdjsonCsvReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8), objectMapper);
+        long copied = importRepository.copyCsv(reader);
+        log.info("Staged {} NDJSON rows in {} ms, {} unparseable", copied, System.currentTimeMillis() - started, reader.getRejected());
+        return merge(reader.getRejected(), started);
+    }
+
+    private InventoryImportResponse merge(long rejectedBeforeStaging, long started) {
+        ImportCounts counts = importRepository.mergeStaged();
+        log.info("Stock import finished in {} ms: {} inserted, {} updated, {} rejected",
+                System.currentTimeMillis() - started, counts.inserted(), counts.updated(), counts.rejected() + rejectedBeforeStaging);
+        return InventoryImportResponse.builder()
+                .inserted(counts.inserted())
+                .updated(counts.updated())
+                .rejected(counts.rejected() + rejectedBeforeStaging)
+                .build();
+    }
+}
@@ -7,18 +7,28 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.nexus.inventory.dto.InventoryRequest;
 import ru.nexus.inventory.dto.InventoryResponse;
+import ru.nexus.inventory.dto.StripingRequest;
 import ru.nexus.inventory.entity.Inventory;
 import ru.nexus.inventory.exception.InsufficientStockException;
 import ru.nexus.inventory.exception.InventoryNotFoundException;
+import ru.nexus.inventory.exception.StockReservationException;
 import ru.nexus.inventory.repository.InventoryRepository;
+import ru.nexus.inventory.repository.InventoryRepository.ReservationLine;
+import ru.nexus.inventory.repository.StockReservationRepository;
 
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryService {
     private final InventoryRepository inventoryRepository;
+    private final StripedInventoryService stripedInventoryService;
+    private final StockReservationRepository reservationRepository;
 
     private InventoryResponse mapToResponse(Inventory inventory) {
         return InventoryResponse.builder()
@@ -26,6 +36,7 @@ public class InventoryService {
                 .isInStock(inventory.getQuantity() > 0)
                 .quantity(inventory.getQuantity())
                 .version(inventory.getVersion())
+                .stripes(inventory.getStripes())
                 .build();
     }
 
@@ -44,9 +55,11 @@ public class InventoryService {
     @Transactional(readOnly = true)
     public InventoryResponse getInventoryDetails(String skuCode) {
         log.info("Get inventory details for: {}", skuCode);
-        return inventoryRepository.findBySkuCode(skuCode)
+        InventoryResponse response = inventoryRepository.findBySkuCode(skuCode)
                 .map(this::mapToResponse)
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory record missing for: " + skuCode));
+        response.setReserved(reservationRepository.sumActiveBySkuCode(skuCode));
+        return response;
     }
 
     @Transactional
@@ -96,17 +109,39 @@ public class InventoryService {
         }
     }
 
+    /**
+     * Creates empty stock records for many SKUs with one statement, existing ones are left as they are.
+     */
+    @Transactional
+    public int initStock(List<String> skuCodes) {
+        return inventoryRepository.insertMissing(skuCodes);
+    }
+
     @Transactional
     public void updateInventory(InventoryRequest request) {
         log.info("Updating inventory for skuCode: {}", request.getSkuCode());
 
-        Inventory inventory = inventoryRepository.findBySkuCode(request.getSkuCode())
+        // Locked first, so no hold is released or swept between reading the holds and writing the balance
+        Inventory inventory = inventoryRepository.findBySkuCodeForUpdate(request.getSkuCode())
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for skuCode: " + request.getSkuCode()));
 
-        inventory.setQuantity(request.getQuantity());
+        // The request is the stock on hand; held units were already taken out and come back on release
+        int held = reservationRepository.sumHeldBySkuCode(request.getSkuCode());
+        int available = Math.max(request.getQuantity() - held, 0);
+        if (request.getQuantity() < held) {
+            log.warn("Balance {} for skuCode {} is below the {} units on hold", request.getQuantity(), request.getSkuCode(), held);
+        }
+
+        boolean striped = inventory.getStripes() > 1;
+
+        inventory.setQuantity(striped ? 0 : available);
         inventory.setVersion(request.getVersion());
 
         inventoryRepository.saveInventory(inventory);
+
+        if (striped) {
+            stripedInventoryService.setBalance(request.getSkuCode(), inventory.getStripes(), available);
+        }
     }
 
     @Transactional
@@ -119,23 +154,77 @@ public class InventoryService {
             return;
         }
 
-        log.warn("Stock adjustment failed. Diagnosing cause for sku: {}", skuCode);
-
-        boolean exists = inventoryRepository.existsBySkuCode(skuCode);
+        // Locked, so a concurrent configureStripes can't fold or spread the stock under the adjustment
+        int stripes = inventoryRepository.findStripesForShare(skuCode)
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for sku: " + skuCode));
 
-        if (!exists) {
-            throw new InventoryNotFoundException("Inventory not found for sku: " + skuCode);
-        } else {
-            throw new InsufficientStockException("Insufficient stock for sku: " + skuCode);
+        // The SKU may have been unstriped since the first update missed it
+        boolean adjusted = stripes > 1
+                ? stripedInventoryService.adjust(skuCode, stripes, delta)
+                : inventoryRepository.updateQuantity(skuCode, delta) > 0;
+        if (adjusted) {
+            return;
         }
+
+        log.warn("Stock adjustment failed, insufficient stock for sku: {}", skuCode);
+        throw new InsufficientStockException("Insufficient stock for sku: " + skuCode);
     }
 
     @Transactional
     public void reserveStock(List<InventoryRequest> requestList) {
         log.info("Reserving stock for items: {} ", requestList);
-        for (InventoryRequest request : requestList) {
-            adjustStock(request.getSkuCode(), -request.getQuantity());
+        if (requestList == null || requestList.isEmpty()) {
+            return;
         }
+
+        reserveStock(sumBySku(requestList));
+    }
+
+    @Transactional
+    public void reserveStock(Map<String, Integer> quantitiesBySku) {
+        List<ReservationLine> lines = inventoryRepository.reserveAll(quantitiesBySku);
+
+        if (lines.stream().allMatch(ReservationLine::reserved)) {
+            // Plain rows are already taken, striped ones come from their buckets; failure rolls back both
+            List<String> insufficient = lines.stream()
+                    .filter(ReservationLine::isStriped)
+                    .sorted(Comparator.comparing(ReservationLine::skuCode))
+                    .filter(line -> !stripedInventoryService.take(line.skuCode(), line.stripes(), line.requested()))
+                    .map(ReservationLine::skuCode)
+                    .toList();
+            if (insufficient.isEmpty()) {
+                return;
+            }
+            log.warn("Reservation rejected. Insufficient striped stock: {}", insufficient);
+            throw new StockReservationException(List.of(), insufficient);
+        }
+
+        List<String> missing = lines.stream()
+                .filter(ReservationLine::isMissing)
+                .map(ReservationLine::skuCode)
+                .toList();
+        List<String> insufficient = lines.stream()
+                .filter(ReservationLine::isInsufficient)
+                .map(ReservationLine::skuCode)
+                .toList();
+
+        log.warn("Reservation rejected. Missing: {}, insufficient: {}", missing, insufficient);
+        throw new StockReservationException(missing, insufficient);
+    }
+
+    public static Map<String, Integer> sumBySku(List<InventoryRequest> requestList) {
+        return requestList.stream()
+                .collect(Collectors.toMap(
+                        InventoryRequest::getSkuCode,
+                        InventoryRequest::getQuantity,
+                        Integer::sum,
+                        LinkedHashMap::new
+                ));
+    }
+
+    @Transactional
+    public InventoryResponse configureStripes(String skuCode, StripingRequest request) {
+        return mapToResponse(stripedInventoryService.configureStripes(skuCode, request.getStripes()));
     }
 
     @Transactional
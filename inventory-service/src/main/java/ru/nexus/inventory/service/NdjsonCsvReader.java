@@ -0,0 +1,40 @@
+package ru.nexus.inventory.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Turns an NDJSON stream of {@code {"skuCode": ..., "quantity": ...}} lines into CSV for COPY,
+ * one line at a time. Lines that are not valid JSON objects are skipped and counted.
+ */
+class NdjsonCsvReader extends StagingCsvReader {
+
+    private final ObjectMapper objectMapper;
+
+    NdjsonCsvReader(Reader source, ObjectMapper objectMapper) {
+        super(source);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected String toCsv(String line) {
+        if (line.isBlank()) {
+            return "";
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            JsonNode skuCode = node.get("skuCode");
+            JsonNode quantity = node.get("quantity");
+            if (skuCode == null || !skuCode.isTextual() || quantity == null || !quantity.isIntegralNumber()) {
+                return reject();
+            }
+            // Quantity stays text so the merge applies the same checks as for CSV uploads
+            return csvLine(skuCode.asText(), quantity.asText());
+        } catch (IOException e) {
+            return reject();
+        }
+    }
+}
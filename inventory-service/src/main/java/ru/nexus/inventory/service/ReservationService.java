@@ -0,0 +1,76 @@
+package ru.nexus.inventory.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.nexus.inventory.dto.ReservationRequest;
+import ru.nexus.inventory.dto.ReservationResponse;
+import ru.nexus.inventory.exception.ReservationNotFoundException;
+import ru.nexus.inventory.repository.InventoryRepository;
+import ru.nexus.inventory.repository.StockReservationRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Time-bounded holds: stock is taken from quantity when the hold is placed and given back
+ * on release or expiry, so quantity is always what is still available to sell. Setting a
+ * balance or importing stock subtracts the units still held, since those come back later.
+ */
+@Slf4j
+@Service
+public class ReservationService {
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final StockReservationRepository reservationRepository;
+    private final Duration defaultTtl;
+
+    public ReservationService(InventoryService inventoryService,
+                              InventoryRepository inventoryRepository,
+                              StockReservationRepository reservationRepository,
+                              @Value("${inventory.reservation.default-ttl:15m}") Duration defaultTtl) {
+        this.inventoryService = inventoryService;
+        this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.defaultTtl = defaultTtl;
+    }
+
+    @Transactional
+    public ReservationResponse createReservation(ReservationRequest request) {
+        Map<String, Integer> quantitiesBySku = InventoryService.sumBySku(request.getItems());
+        Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultTtl;
+
+        inventoryService.reserveStock(quantitiesBySku);
+
+        UUID reservationId = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(ttl);
+        reservationRepository.insertAll(reservationId, quantitiesBySku, expiresAt);
+
+        log.info("Created reservation {} for {} SKUs, expires at {}", reservationId, quantitiesBySku.size(), expiresAt);
+        return ReservationResponse.builder()
+                .reservationId(reservationId)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Transactional
+    public void confirmReservation(UUID reservationId) {
+        log.info("Confirming reservation: {}", reservationId);
+        if (reservationRepository.deleteActive(reservationId) == 0) {
+            throw new ReservationNotFoundException(reservationId.toString());
+        }
+    }
+
+    @Transactional
+    public void releaseReservation(UUID reservationId) {
+        log.info("Releasing reservation: {}", reservationId);
+        Map<String, Integer> quantitiesBySku = reservationRepository.deleteAll(reservationId);
+        if (quantitiesBySku.isEmpty()) {
+            throw new ReservationNotFoundException(reservationId.toString());
+        }
+        inventoryRepository.restockAll(quantitiesBySku);
+    }
+}
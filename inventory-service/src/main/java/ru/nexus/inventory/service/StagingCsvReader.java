@@ -0,0 +1,65 @@
+package ru.nexus.inventory.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Feeds COPY one converted line at a time, so a bad input line is skipped and counted here
+ * instead of failing the whole COPY. Subclasses turn a source line into a
+ * {@code sku_code,quantity} CSV line, or return an empty string to drop it.
+ */
+abstract class StagingCsvReader extends Reader {
+
+    private final BufferedReader source;
+    private String current = "";
+    private int position;
+    private long rejected;
+
+    StagingCsvReader(Reader source) {
+        this.source = new BufferedReader(source);
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    protected abstract String toCsv(String line);
+
+    protected String reject() {
+        rejected++;
+        return "";
+    }
+
+    protected static String csvLine(String skuCode, String quantity) {
+        return quote(skuCode) + ',' + quote(quantity) + '\n';
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (position >= current.length()) {
+            String line = source.readLine();
+            if (line == null) {
+                return -1;
+            }
+            current = toCsv(line);
+            position = 0;
+        }
+        int count = Math.min(length, current.length() - position);
+        current.getChars(position, position + count, buffer, offset);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
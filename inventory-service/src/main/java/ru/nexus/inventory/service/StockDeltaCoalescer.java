@@ -0,0 +1,207 @@
+package ru.nexus.inventory.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nexus.inventory.entity.Inventory;
+import ru.nexus.inventory.exception.InsufficientStockException;
+import ru.nexus.inventory.exception.InventoryNotFoundException;
+import ru.nexus.inventory.repository.InventoryRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for {@code /adjust}: deltas are queued without locking and flushed every few
+ * milliseconds (or once the batch is full) as one transaction with a single UPDATE.
+ * A caller's future completes only after the transaction holding its delta has committed.
+ * When disabled every delta goes straight to {@link InventoryService#adjustStock}.
+ */
+@Slf4j
+@Component
+public class StockDeltaCoalescer {
+
+    private final InventoryService inventoryService;
+    private final StripedInventoryService stripedInventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<PendingDelta> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+
+    public StockDeltaCoalescer(InventoryService inventoryService,
+                               StripedInventoryService stripedInventoryService,
+                               InventoryRepository inventoryRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${inventory.adjust.coalescing.enabled:false}") boolean enabled,
+                               @Value("${inventory.adjust.coalescing.flush-interval:5ms}") Duration flushInterval,
+                               @Value("${inventory.adjust.coalescing.max-batch-size:500}") int maxBatchSize) {
+        this.inventoryService = inventoryService;
+        this.stripedInventoryService = stripedInventoryService;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "stock-delta-flusher"));
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Stock delta coalescing enabled: flush every {}, batch up to {}", flushInterval, maxBatchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public CompletableFuture<Void> submit(String skuCode, int delta) {
+        if (!running) {
+            try {
+                inventoryService.adjustStock(skuCode, delta);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        PendingDelta pendingDelta = new PendingDelta(skuCode, delta, new CompletableFuture<>());
+        // Counted before it is visible to the flusher, so the drain below never takes pending negative
+        int queued = pending.incrementAndGet();
+        queue.offer(pendingDelta);
+
+        if (!running) {
+            // Raced with shutdown after its final flush, nobody else will pick this one up
+            flush();
+        } else if (queued >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Flusher is shutting down; stop() flushes once more, but this caller should not wait for it
+                flush();
+            }
+        }
+        return pendingDelta.future();
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        try {
+            List<PendingDelta> batch;
+            do {
+                batch = drain();
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                }
+            } while (batch.size() == maxBatchSize);
+        } catch (RuntimeException e) {
+            // An exception escaping here would cancel the scheduled flush for good
+            log.error("Stock delta flush failed. Error: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<PendingDelta> drain() {
+        List<PendingDelta> batch = new ArrayList<>(maxBatchSize);
+        PendingDelta next;
+        while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+        pending.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private void apply(List<PendingDelta> batch) {
+        // Sorted by SKU so the striped bucket updates below also take their locks in a fixed order
+        Map<String, List<PendingDelta>> bySku = batch.stream()
+                .collect(Collectors.groupingBy(PendingDelta::skuCode, TreeMap::new, Collectors.toList()));
+        Map<PendingDelta, RuntimeException> rejected = new IdentityHashMap<>();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rejected.clear();
+                Map<String, Inventory> locked = inventoryRepository.lockAllBySkuCodes(bySku.keySet()).stream()
+                        .collect(Collectors.toMap(Inventory::getSkuCode, Function.identity()));
+                Map<String, Integer> netDeltas = new LinkedHashMap<>();
+
+                bySku.forEach((skuCode, deltas) -> {
+                    Inventory inventory = locked.get(skuCode);
+                    if (inventory == null) {
+                        deltas.forEach(d -> rejected.put(d, new InventoryNotFoundException("Inventory not found for sku: " + skuCode)));
+                    } else if (inventory.getStripes() > 1) {
+                        deltas.stream()
+                                .filter(d -> !stripedInventoryService.adjust(skuCode, inventory.getStripes(), d.delta()))
+                                .forEach(d -> rejected.put(d, new InsufficientStockException("Insufficient stock for sku: " + skuCode)));
+                    } else {
+                        // Deltas are checked in arrival order against the running balance, as if applied one by one
+                        int balance = inventory.getQuantity();
+                        for (PendingDelta d : deltas) {
+                            if (balance + d.delta() < 0) {
+                                rejected.put(d, new InsufficientStockException("Insufficient stock for sku: " + skuCode));
+                            } else {
+                                balance += d.delta();
+                                netDeltas.merge(skuCode, d.delta(), Integer::sum);
+                            }
+                        }
+                    }
+                });
+
+                if (!netDeltas.isEmpty()) {
+                    inventoryRepository.applyDeltas(netDeltas);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} stock deltas. Error: {}", batch.size(), e.getMessage());
+            batch.forEach(d -> d.future().completeExceptionally(e));
+            return;
+        }
+
+        log.debug("Flushed {} stock deltas for {} SKUs, rejected {}", batch.size(), bySku.size(), rejected.size());
+        for (PendingDelta d : batch) {
+            RuntimeException error = rejected.get(d);
+            if (error != null) {
+                d.future().completeExceptionally(error);
+            } else {
+                d.future().complete(null);
+            }
+        }
+    }
+
+    private record PendingDelta(String skuCode, int delta, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,85 @@
+package ru.nexus.inventory.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.nexus.inventory.entity.Inventory;
+import ru.nexus.inventory.exception.InventoryNotFoundException;
+import ru.nexus.inventory.repository.InventoryBucketRepository;
+import ru.nexus.inventory.repository.InventoryRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot SKUs can be split into several bucket rows so concurrent reservations
+ * land on different rows instead of queueing on the single t_inventory row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripedInventoryService {
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBucketRepository bucketRepository;
+
+    @Transactional
+    public boolean adjust(String skuCode, int stripes, int delta) {
+        if (delta >= 0) {
+            return bucketRepository.addToBucket(skuCode, randomBucket(stripes), delta) > 0;
+        }
+        return take(skuCode, stripes, -delta);
+    }
+
+    @Transactional
+    public boolean take(String skuCode, int stripes, int quantity) {
+        if (bucketRepository.takeFromBucket(skuCode, randomBucket(stripes), quantity) > 0) {
+            return true;
+        }
+        if (bucketRepository.takeFromAnyBucket(skuCode, quantity) > 0) {
+            return true;
+        }
+        log.info("No single bucket covers {} of sku: {}, draining across buckets", quantity, skuCode);
+        return bucketRepository.takeAcrossBuckets(skuCode, quantity) > 0;
+    }
+
+    /**
+     * Overwrites the stock of a striped SKU, spreading it evenly over its buckets.
+     */
+    @Transactional
+    public void setBalance(String skuCode, int stripes, int quantity) {
+        bucketRepository.lockTotal(skuCode);
+        bucketRepository.deleteBuckets(skuCode);
+        bucketRepository.distribute(skuCode, quantity, stripes);
+    }
+
+    /**
+     * Moves a SKU between plain and striped mode, rebalancing the current stock over
+     * the new number of buckets. One stripe means a plain t_inventory row.
+     */
+    @Transactional
+    public Inventory configureStripes(String skuCode, int stripes) {
+        log.info("Configuring {} stripes for sku: {}", stripes, skuCode);
+
+        Inventory inventory = inventoryRepository.findBySkuCodeForUpdate(skuCode)
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for sku: " + skuCode));
+
+        int total = inventory.getQuantity() + bucketRepository.lockTotal(skuCode);
+        bucketRepository.deleteBuckets(skuCode);
+
+        if (stripes > 1) {
+            bucketRepository.distribute(skuCode, total, stripes);
+            inventoryRepository.updateStriping(skuCode, 0, stripes);
+        } else {
+            inventoryRepository.updateStriping(skuCode, total, 1);
+        }
+
+        inventory.setQuantity(total);
+        inventory.setStripes(stripes);
+        inventory.setVersion(inventory.getVersion() + 1);
+        return inventory;
+    }
+
+    private int randomBucket(int stripes) {
+        return ThreadLocalRandom.current().nextInt(stripes);
+    }
+}
@@ -4,3 +4,22 @@ CREATE TABLE IF NOT EXISTS t_inventory (
     quantity INTEGER NOT NULL,
     version INTEGER NOT NULL
 );
+
+ALTER TABLE t_inventory ADD COLUMN IF NOT EXISTS stripes INTEGER NOT NULL DEFAULT 1;
+
+CREATE TABLE IF NOT EXISTS t_inventory_bucket (
+    sku_code VARCHAR(255) NOT NULL REFERENCES t_inventory (sku_code) ON DELETE CASCADE,
+    bucket INTEGER NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0),
+    PRIMARY KEY (sku_code, bucket)
+);
+
+CREATE TABLE IF NOT EXISTS t_stock_reservation (
+    reservation_id UUID NOT NULL,
+    sku_code VARCHAR(255) NOT NULL REFERENCES t_inventory (sku_code) ON DELETE CASCADE,
+    quantity INTEGER NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (reservation_id, sku_code)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_expires_at ON t_stock_reservation (expires_at);
@@ -0,0 +1,395 @@
+package ru.nexus.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nexus.common.event.ProductCreatedEvent;
+import ru.nexus.common.test.ContainerFactory;
+import ru.nexus.inventory.config.RabbitMQConfig;
+import ru.nexus.inventory.dto.DeadLetterReplayResponse;
+import ru.nexus.inventory.dto.InventoryImportResponse;
+import ru.nexus.inventory.dto.InventoryRequest;
+import ru.nexus.inventory.dto.ReservationRequest;
+import ru.nexus.inventory.dto.ReservationResponse;
+import ru.nexus.inventory.dto.StripingRequest;
+import ru.nexus.inventory.exception.InsufficientStockException;
+import ru.nexus.inventory.exception.InventoryNotFoundException;
+import ru.nexus.inventory.exception.StockReservationException;
+import ru.nexus.inventory.listener.FailedMessageRouter;
+import ru.nexus.inventory.scheduler.ReservationExpirySweeper;
+import ru.nexus.inventory.service.DeadLetterReplayService;
+import ru.nexus.inventory.service.InventoryImportService;
+import ru.nexus.inventory.service.InventoryService;
+import ru.nexus.inventory.service.ReservationService;
+import ru.nexus.inventory.service.StockDeltaCoalescer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = {
+        "inventory.adjust.coalescing.enabled=true",
+        // Small batches so the size-triggered flush races the scheduled one
+        "inventory.adjust.coalescing.max-batch-size=16"
+})
+@Testcontainers
+class InventoryIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = ContainerFactory.postgres();
+
+    @Container
+    @ServiceConnection
+    static RabbitMQContainer rabbit = ContainerFactory.rabbit();
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockDeltaCoalescer stockDeltaCoalescer;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationExpirySweeper reservationExpirySweeper;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE t_inventory CASCADE");
+        amqpAdmin.purgeQueue(RabbitMQConfig.PRODUCT_CREATED_DLQ, false);
+    }
+
+    @Test
+    @DisplayName("Should apply every concurrently submitted delta exactly once")
+    void coalesceConcurrentDeltas() throws Exception {
+        stock("SKU-COALESCE", 0);
+
+        List<CompletableFuture<Void>> futures = submitConcurrently(64, 25, () -> stockDeltaCoalescer.submit("SKU-COALESCE", 1));
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        assertThat(quantity("SKU-COALESCE")).isEqualTo(64 * 25);
+    }
+
+    @Test
+    @DisplayName("Should reject only the deltas that would take stock below zero")
+    void coalesceRejectsOverdraw() throws Exception {
+        stock("SKU-OVERDRAW", 50);
+
+        List<CompletableFuture<Void>> futures = submitConcurrently(20, 5, () -> stockDeltaCoalescer.submit("SKU-OVERDRAW", -1));
+
+        long failed = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InsufficientStockException.class);
+                failed++;
+            }
+        }
+        assertThat(failed).isEqualTo(50);
+        assertThat(quantity("SKU-OVERDRAW")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fail unknown SKUs and keep flushing afterwards")
+    void coalesceSurvivesFailures() throws Exception {
+        stock("SKU-ALIVE", 0);
+
+        assertThatThrownBy(() -> stockDeltaCoalescer.submit("SKU-MISSING", 1).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(InventoryNotFoundException.class);
+
+        // Served by the scheduled flush, which must still be running
+        stockDeltaCoalescer.submit("SKU-ALIVE", 3).get(5, TimeUnit.SECONDS);
+        assertThat(quantity("SKU-ALIVE")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should take held stock and give it back on release")
+    void reserveAndRelease() {
+        stock("SKU-HOLD", 10);
+
+        ReservationResponse reservation = reservationService.createReservation(reservation(60, "SKU-HOLD", 4));
+        assertThat(quantity("SKU-HOLD")).isEqualTo(6);
+        assertThat(inventoryService.getInventoryDetails("SKU-HOLD").getReserved()).isEqualTo(4);
+
+        assertThatThrownBy(() -> reservationService.createReservation(reservation(60, "SKU-HOLD", 7)))
+                .isInstanceOf(StockReservationException.class);
+        assertThat(quantity("SKU-HOLD")).isEqualTo(6);
+
+        reservationService.releaseReservation(reservation.getReservationId());
+        assertThat(quantity("SKU-HOLD")).isEqualTo(10);
+        assertThat(inventoryService.getInventoryDetails("SKU-HOLD").getReserved()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should return expired holds to stock")
+    void sweepExpiredHolds() {
+        stock("SKU-EXPIRE", 5);
+
+        reservationService.createReservation(reservation(1, "SKU-EXPIRE", 5));
+        assertThat(quantity("SKU-EXPIRE")).isZero();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            reservationExpirySweeper.sweepExpired();
+            assertThat(quantity("SKU-EXPIRE")).isEqualTo(5);
+        });
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM t_stock_reservation", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep holds out of a balance set while they are active")
+    void setBalanceWithActiveHolds() {
+        stock("SKU-BALANCE", 10);
+        ReservationResponse reservation = reservationService.createReservation(reservation(60, "SKU-BALANCE", 4));
+
+        int version = inventoryService.getInventoryDetails("SKU-BALANCE").getVersion();
+        inventoryService.updateInventory(InventoryRequest.builder()
+                .skuCode("SKU-BALANCE").quantity(10).version(version).build());
+        assertThat(quantity("SKU-BALANCE")).isEqualTo(6);
+
+        // Released units go back on top of the balance, which must not count them twice
+        reservationService.releaseReservation(reservation.getReservationId());
+        assertThat(quantity("SKU-BALANCE")).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should reserve a whole cart in one go or report every missing and short SKU")
+    void reserveCart() {
+        stock("SKU-CART-A", 5);
+        stock("SKU-CART-B", 2);
+
+        // Lines for the same SKU are summed before the check
+        inventoryService.reserveStock(List.of(
+                InventoryRequest.builder().skuCode("SKU-CART-A").quantity(2).build(),
+                InventoryRequest.builder().skuCode("SKU-CART-B").quantity(1).build(),
+                InventoryRequest.builder().skuCode("SKU-CART-A").quantity(1).build()));
+        assertThat(quantity("SKU-CART-A")).isEqualTo(2);
+        assertThat(quantity("SKU-CART-B")).isEqualTo(1);
+
+        assertThatThrownBy(() -> inventoryService.reserveStock(Map.of("SKU-CART-A", 1, "SKU-CART-B", 5, "SKU-CART-C", 1)))
+                .isInstanceOfSatisfying(StockReservationException.class, e -> {
+                    assertThat(e.getMissingSkuCodes()).containsExactly("SKU-CART-C");
+                    assertThat(e.getInsufficientSkuCodes()).containsExactly("SKU-CART-B");
+                });
+        assertThat(quantity("SKU-CART-A")).isEqualTo(2);
+        assertThat(quantity("SKU-CART-B")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should spread striped stock over buckets, drain across them and fold it back on unstriping")
+    void stripedStock() {
+        stock("SKU-STRIPES", 10);
+
+        inventoryService.configureStripes("SKU-STRIPES", StripingRequest.builder().stripes(4).build());
+        assertThat(quantity("SKU-STRIPES")).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM t_inventory_bucket WHERE sku_code = ?", Integer.class, "SKU-STRIPES")).isEqualTo(4);
+        assertThat(inventoryService.getInventoryDetails("SKU-STRIPES").getQuantity()).isEqualTo(10);
+
+        inventoryService.adjustStock("SKU-STRIPES", 5);
+        // No single bucket holds 12, so this one has to drain several
+        inventoryService.adjustStock("SKU-STRIPES", -12);
+        assertThat(inventoryService.getInventoryDetails("SKU-STRIPES").getQuantity()).isEqualTo(3);
+        assertThatThrownBy(() -> inventoryService.adjustStock("SKU-STRIPES", -4))
+                .isInstanceOf(InsufficientStockException.class);
+
+        inventoryService.configureStripes("SKU-STRIPES", StripingRequest.builder().stripes(1).build());
+        assertThat(quantity("SKU-STRIPES")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM t_inventory_bucket WHERE sku_code = ?", Integer.class, "SKU-STRIPES")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reserve striped and plain SKUs together and roll both back when a bucket runs short")
+    void reserveStripedWithPlain() {
+        stock("SKU-PLAIN", 10);
+        stock("SKU-STRIPED", 8);
+        inventoryService.configureStripes("SKU-STRIPED", StripingRequest.builder().stripes(4).build());
+
+        inventoryService.reserveStock(Map.of("SKU-PLAIN", 3, "SKU-STRIPED", 5));
+        assertThat(quantity("SKU-PLAIN")).isEqualTo(7);
+        assertThat(inventoryService.getInventoryDetails("SKU-STRIPED").getQuantity()).isEqualTo(3);
+
+        assertThatThrownBy(() -> inventoryService.reserveStock(Map.of("SKU-PLAIN", 3, "SKU-STRIPED", 4)))
+                .isInstanceOfSatisfying(StockReservationException.class, e ->
+                        assertThat(e.getInsufficientSkuCodes()).containsExactly("SKU-STRIPED"));
+        assertThat(quantity("SKU-PLAIN")).isEqualTo(7);
+        assertThat(inventoryService.getInventoryDetails("SKU-STRIPED").getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should import CSV stock and count malformed lines as rejected")
+    void importCsv() throws Exception {
+        stock("SKU-OLD", 1);
+        stock("SKU-HELD", 10);
+        reservationService.createReservation(reservation(60, "SKU-HELD", 3));
+
+        String csv = """
+                sku_code,quantity
+                SKU-OLD,7
+                "SKU-NEW",5
+                SKU-HELD,10
+                SKU-EXTRA,1,2
+                SKU-LONELY
+                "SKU-UNCLOSED,3
+                SKU-NEGATIVE,-4
+                """;
+
+        InventoryImportResponse response = inventoryImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), true);
+
+        assertThat(response.getInserted()).isEqualTo(1);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(4);
+        assertThat(quantity("SKU-OLD")).isEqualTo(7);
+        assertThat(quantity("SKU-NEW")).isEqualTo(5);
+        // Imported counts are on hand, the 3 held units are still out
+        assertThat(quantity("SKU-HELD")).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON stock")
+    void importNdjson() throws Exception {
+        String ndjson = """
+                {"skuCode": "SKU-JSON", "quantity": 12}
+                {"skuCode": "SKU-JSON-BAD", "quantity": "many"}
+                not json
+                """;
+
+        InventoryImportResponse response = inventoryImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getInserted()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(2);
+        assertThat(quantity("SKU-JSON")).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should create stock for product events received in batches")
+    void consumeProductCreatedBatch() {
+        for (int i = 0; i < 30; i++) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE, "SKU-EVENT-" + i,
+                    ProductCreatedEvent.builder().skuCode("SKU-EVENT-" + i).title("Event " + i).build());
+        }
+
+        await().atMost(Duration.ofSeconds(15)).untilAsserted(() -> assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM t_inventory WHERE sku_code LIKE 'SKU-EVENT-%'", Integer.class)).isEqualTo(30));
+        assertThat(dlqDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should dead-letter an undecodable event alone and replay it to its partition")
+    void deadLetterAndReplay() {
+        Message poison = MessageBuilder.withBody("not json".getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .build();
+        rabbitTemplate.send(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE, "SKU-POISON", poison);
+        rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE, "SKU-POISON",
+                ProductCreatedEvent.builder().skuCode("SKU-POISON").build());
+
+        await().atMost(Duration.ofSeconds(15)).untilAsserted(() -> {
+            assertThat(dlqDepth()).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM t_inventory WHERE sku_code = 'SKU-POISON'", Integer.class)).isEqualTo(1);
+        });
+
+        Message deadLettered = rabbitTemplate.receive(RabbitMQConfig.PRODUCT_CREATED_DLQ);
+        assertThat(deadLettered).isNotNull();
+        assertThat((String) deadLettered.getMessageProperties().getHeader(FailedMessageRouter.ORIGINAL_QUEUE_HEADER))
+                .startsWith(RabbitMQConfig.PRODUCT_EVENTS_PARTITION_QUEUE_PREFIX);
+        rabbitTemplate.send(RabbitMQConfig.PRODUCT_CREATED_DLQ, deadLettered);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(dlqDepth()).isEqualTo(1));
+
+        DeadLetterReplayResponse replay = deadLetterReplayService.replayProductCreated(10);
+        assertThat(replay.getReplayed()).isEqualTo(1);
+        assertThat(replay.getSkipped()).isZero();
+
+        // Still poison: it goes through its partition once more and lands back in the DLQ
+        await().atMost(Duration.ofSeconds(15)).untilAsserted(() -> assertThat(dlqDepth()).isEqualTo(1));
+    }
+
+    private long dlqDepth() {
+        QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.PRODUCT_CREATED_DLQ);
+        return info != null ? info.getMessageCount() : -1;
+    }
+
+    private List<CompletableFuture<Void>> submitConcurrently(int threads, int perThread,
+                                                             Supplier<CompletableFuture<Void>> submit) {
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < perThread; j++) {
+                        futures.add(submit.get());
+                    }
+                });
+            }
+        }
+        return futures;
+    }
+
+    private static ReservationRequest reservation(long ttlSeconds, String skuCode, int quantity) {
+        return ReservationRequest.builder()
+                .items(List.of(InventoryRequest.builder().skuCode(skuCode).quantity(quantity).build()))
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private void stock(String skuCode, int quantity) {
+        inventoryService.initStock(skuCode);
+        if (quantity > 0) {
+            inventoryService.adjustStock(skuCode, quantity);
+        }
+    }
+
+    private int quantity(String skuCode) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM t_inventory WHERE sku_code = ?", Integer.class, skuCode);
+    }
+}
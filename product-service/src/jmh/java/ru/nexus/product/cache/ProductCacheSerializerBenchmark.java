@@ -0,0 +1,85 @@
+package ru.nexus.product.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import ru.nexus.product.dto.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode throughput of a typical cached product, JSON (as RedisConfig has always written it)
+ * against the binary format. Encoded sizes are printed once per trial.
+ * <p>
+ * Run with {@code ./gradlew :product-service:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductCacheSerializerBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public ProductCacheSerializer.Format format;
+
+    private ProductCacheSerializer serializer;
+    private CacheEnvelope envelope;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY
+        );
+        serializer = new ProductCacheSerializer(format, new GenericJackson2JsonRedisSerializer(objectMapper));
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("brand", "Apple");
+        attributes.put("color", "Natural Titanium");
+        attributes.put("storageGb", 256);
+        attributes.put("weightKg", 0.187);
+        attributes.put("tags", List.of("smartphone", "5g", "flagship"));
+        attributes.put("dimensions", Map.of("height", 146.6, "width", 70.6, "depth", 8.25));
+
+        ProductResponse product = ProductResponse.builder()
+                .id("65f1c2a9e4b0a1d2c3f4e5a6")
+                .skuCode("APL-IP15P-256-NT")
+                .title("iPhone 15 Pro 256GB Natural Titanium")
+                .price(new BigDecimal("1199.99"))
+                .category("Electronics")
+                .attributes(attributes)
+                .build();
+        envelope = new CacheEnvelope(product, System.currentTimeMillis() + 600_000, 12, 0);
+        encoded = serializer.serialize(envelope);
+
+        System.out.printf("%n%s encoded size: %d bytes%n", format, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(envelope);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
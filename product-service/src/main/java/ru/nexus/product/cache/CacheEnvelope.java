@@ -0,0 +1,28 @@
+package ru.nexus.product.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What the two-tier cache actually stores: the value plus what early refresh needs to know,
+ * when the Redis copy expires and how long the value took to compute, and the generation of
+ * the value's scope (its category) at write time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+    private Object value;
+    private long expiresAt;
+    private long computeMillis;
+    private long generation;
+
+    static CacheEnvelope wrap(Object stored) {
+        if (stored instanceof CacheEnvelope envelope) {
+            return envelope;
+        }
+        // Entry written before envelopes existed: usable, but never refreshed early
+        return new CacheEnvelope(stored, Long.MAX_VALUE, 0, 0);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.nexus.product.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.nexus.product.dto.ProductResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Generation counters in Redis that make bulk invalidation O(1). A cache's generation is part of
+ * its key prefix, a category's generation is stamped into every envelope of a product in that
+ * category; bumping either orphans the old entries, which then age out through their TTL.
+ * <p>
+ * Nodes keep the counters locally and learn about bumps through pub/sub, with a periodic poll
+ * as the safety net for missed messages.
+ */
+@Slf4j
+public class CacheGenerations implements MessageListener {
+
+    public static final ChannelTopic TOPIC = new ChannelTopic("product-service:cache-generation");
+
+    private static final String CACHE_KEY = "product-service:generation:cache:";
+    private static final String CATEGORY_KEY = "product-service:generation:category:";
+
+    private final StringRedisTemplate redisTemplate;
+    // Redis key -> generation
+    private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+    private Consumer<String> onCacheBump = cacheName -> { };
+
+    public CacheGenerations(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    void bind(Consumer<String> onCacheBump) {
+        this.onCacheBump = onCacheBump;
+    }
+
+    /**
+     * Generation 0 keeps the plain {@code name::} prefix, so entries written before generations
+     * existed stay valid until the first bump.
+     */
+    public String prefixFor(String cacheName) {
+        long generation = current(CACHE_KEY + cacheName);
+        return generation == 0 ? cacheName + "::" : cacheName + "::g" + generation + "::";
+    }
+
+    long scopeGeneration(Object value) {
+        if (value instanceof ProductResponse product && product.getCategory() != null) {
+            return current(CATEGORY_KEY + product.getCategory());
+        }
+        return 0;
+    }
+
+    boolean isCurrent(CacheEnvelope envelope) {
+        return envelope.getGeneration() == scopeGeneration(envelope.getValue());
+    }
+
+    public long bumpCache(String cacheName) {
+        return bump(CACHE_KEY + cacheName);
+    }
+
+    public long bumpCategory(String category) {
+        return bump(CATEGORY_KEY + category);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (generations.containsKey(key)) {
+            update(key, load(key));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.cache.generation-poll-interval:5s}")
+    public void refresh() {
+        List<String> keys = new ArrayList<>(generations.keySet());
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; values != null && i < keys.size(); i++) {
+                update(keys.get(i), parse(values.get(i)));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh cache generations. Error: {}", e.getMessage());
+        }
+    }
+
+    private long bump(String key) {
+        Long generation = redisTemplate.opsForValue().increment(key);
+        update(key, generation);
+        try {
+            redisTemplate.convertAndSend(TOPIC.getTopic(), key);
+        } catch (Exception e) {
+            // Other nodes pick it up on their next poll
+            log.error("Failed to broadcast generation bump: {}. Error: {}", key, e.getMessage());
+        }
+        log.info("Cache generation bumped: {} -> {}", key, generation);
+        return generation;
+    }
+
+    private long current(String key) {
+        Long generation = generations.get(key);
+        if (generation != null) {
+            return generation;
+        }
+        try {
+            generation = load(key);
+        } catch (Exception e) {
+            // Not remembered, so the next call retries
+            log.warn("Failed to read cache generation: {}. Error: {}", key, e.getMessage());
+            return 0;
+        }
+        Long existing = generations.putIfAbsent(key, generation);
+        return existing != null ? existing : generation;
+    }
+
+    private long load(String key) {
+        return parse(redisTemplate.opsForValue().get(key));
+    }
+
+    private void update(String key, long generation) {
+        Long previous = generations.put(key, generation);
+        if (previous != null && previous != generation && key.startsWith(CACHE_KEY)) {
+            onCacheBump.accept(key.substring(CACHE_KEY.length()));
+        }
+    }
+
+    private static long parse(String value) {
+        return value != null ? Long.parseLong(value) : 0;
+    }
+}
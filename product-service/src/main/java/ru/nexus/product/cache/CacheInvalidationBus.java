@@ -0,0 +1,67 @@
+package ru.nexus.product.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Redis pub/sub channel that tells other product-service nodes to drop L1 entries.
+ * Messages are {@code origin \n cache \n key}; an empty key means the whole cache.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final ChannelTopic TOPIC = new ChannelTopic("product-service:cache-invalidation");
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private Function<String, TwoTierCache> caches = name -> null;
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    void bind(Function<String, TwoTierCache> caches) {
+        this.caches = caches;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(cacheName, key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, "");
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(TOPIC.getTopic(), nodeId + '\n' + cacheName + '\n' + key);
+        } catch (Exception e) {
+            // Other nodes fall back to their L1 TTL
+            log.error("Failed to broadcast invalidation for cache: {} key: {}. Error: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.apply(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts[2].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.nexus.product.cache;
+
+/**
+ * Loads a fresh value for one cache when its entry is refreshed early, on a background thread
+ * and long after the read that triggered it. A cache without one is never refreshed early.
+ */
+public interface CacheRefresher {
+
+    String cacheName();
+
+    /**
+     * @return the current value, or null if there is none any more
+     */
+    Object load(Object key);
+}
@@ -0,0 +1,42 @@
+package ru.nexus.product.cache;
+
+import ru.nexus.product.dto.ProductResponse;
+
+import java.util.Map;
+
+/**
+ * Rough heap footprint of cached values, good enough to bound the L1 by memory.
+ */
+final class CacheWeights {
+
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int DEFAULT_WEIGHT = 1024;
+
+    private CacheWeights() {
+    }
+
+    static int estimate(Object value) {
+        if (value instanceof ProductResponse product) {
+            int weight = OBJECT_OVERHEAD
+                    + chars(product.getId())
+                    + chars(product.getSkuCode())
+                    + chars(product.getTitle())
+                    + chars(product.getCategory())
+                    + 32;
+            if (product.getAttributes() != null) {
+                for (Map.Entry<String, Object> attribute : product.getAttributes().entrySet()) {
+                    weight += OBJECT_OVERHEAD + chars(attribute.getKey()) + chars(String.valueOf(attribute.getValue()));
+                }
+            }
+            return weight;
+        }
+        if (value instanceof String string) {
+            return OBJECT_OVERHEAD + chars(string);
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    private static int chars(String value) {
+        return value != null ? 2 * value.length() : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.nexus.product.cache;
+
+/**
+ * Read by the cache annotations on the write path through {@code @cacheWritePolicy}.
+ *
+ * @param writeThrough whether writes put and evict cache entries themselves
+ */
+public record CacheWritePolicy(boolean writeThrough) {
+}
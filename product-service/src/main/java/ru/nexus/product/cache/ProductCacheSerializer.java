@@ -0,0 +1,156 @@
+package ru.nexus.product.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import ru.nexus.product.dto.ProductResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Value serializer for the product caches. Writes either the typed JSON we always had or a compact
+ * binary form, depending on config, and reads both, so switching formats needs no cache flush.
+ * <p>
+ * Binary layout: {@code MAGIC, schema version, type tag, [expiresAt, computeMillis, generation], payload}.
+ * Known types are written as Smile without class names; anything else falls back to typed JSON
+ * inside the frame. Entries with an unknown schema version or that fail to decode read as a miss.
+ * <p>
+ * Product attribute values are untyped, so from schema 3 on each carries its class name, as in the
+ * JSON form; otherwise a BigDecimal comes back as a Double and a Long as an Integer. Schema 2 frames,
+ * written without, are still read, with that loss.
+ */
+@Slf4j
+public class ProductCacheSerializer implements RedisSerializer<Object> {
+
+    public enum Format { JSON, BINARY }
+
+    // Never the first byte of a JSON document
+    static final byte MAGIC = (byte) 0xB1;
+    // 2: envelope carries the category generation, 3: typed attribute values
+    static final byte SCHEMA_VERSION = 3;
+    private static final byte UNTYPED_ATTRIBUTES_VERSION = 2;
+
+    private static final int ENVELOPED = 0x80;
+    private static final int TYPE_OTHER = 0;
+    private static final int TYPE_PRODUCT = 1;
+    private static final int TYPE_STRING = 2;
+
+    private final Format format;
+    private final GenericJackson2JsonRedisSerializer json;
+    // Fields added to ProductResponse later must not turn older entries into errors
+    private final ObjectMapper untypedSmile = new ObjectMapper(new SmileFactory())
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ObjectMapper smile = untypedSmile.copy()
+            .addMixIn(ProductResponse.class, TypedAttributes.class);
+
+    public ProductCacheSerializer(Format format, GenericJackson2JsonRedisSerializer json) {
+        this.format = format;
+        this.json = json;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (format == Format.JSON) {
+            return json.serialize(value);
+        }
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC);
+            out.writeByte(SCHEMA_VERSION);
+
+            Object payload = value;
+            if (value instanceof CacheEnvelope envelope) {
+                payload = envelope.getValue();
+                out.writeByte(ENVELOPED | typeOf(payload));
+                out.writeLong(envelope.getExpiresAt());
+                out.writeLong(envelope.getComputeMillis());
+                out.writeLong(envelope.getGeneration());
+            } else {
+                out.writeByte(typeOf(payload));
+            }
+
+            switch (typeOf(payload)) {
+                case TYPE_PRODUCT -> out.write(smile.writeValueAsBytes(payload));
+                case TYPE_STRING -> out.write(((String) payload).getBytes(StandardCharsets.UTF_8));
+                default -> out.write(json.serialize(payload));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value in binary format", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return bytes[0] == MAGIC ? readBinary(bytes) : json.deserialize(bytes);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unreadable cache entry, treating as a miss. Error: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Object readBinary(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.readByte();
+        byte version = in.readByte();
+        if (version != SCHEMA_VERSION && version != UNTYPED_ATTRIBUTES_VERSION) {
+            log.debug("Cache entry has schema version {}, expected {}", version, SCHEMA_VERSION);
+            return null;
+        }
+        int tag = in.readUnsignedByte();
+        CacheEnvelope envelope = null;
+        if ((tag & ENVELOPED) != 0) {
+            envelope = new CacheEnvelope(null, in.readLong(), in.readLong(), in.readLong());
+        }
+
+        Object payload = switch (tag & ~ENVELOPED) {
+            case TYPE_PRODUCT -> (version == SCHEMA_VERSION ? smile : untypedSmile)
+                    .readValue(in.readAllBytes(), ProductResponse.class);
+            case TYPE_STRING -> new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            case TYPE_OTHER -> json.deserialize(in.readAllBytes());
+            default -> throw new IOException("Unknown cache value type: " + (tag & ~ENVELOPED));
+        };
+        if (envelope == null) {
+            return payload;
+        }
+        envelope.setValue(payload);
+        return envelope;
+    }
+
+    private abstract static class TypedAttributes {
+        @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+        abstract Map<String, Object> getAttributes();
+    }
+
+    private static int typeOf(Object payload) {
+        if (payload instanceof ProductResponse) {
+            return TYPE_PRODUCT;
+        }
+        if (payload instanceof String) {
+            return TYPE_STRING;
+        }
+        return TYPE_OTHER;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.nexus.product.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-key reads and writes against a {@link RedisCache}, which itself only does one key per
+ * round trip. Keys and values go through the cache's own prefix and serializers, so entries are
+ * interchangeable with the ones written by {@code RedisCache#put}.
+ */
+public class RedisBulkOperations {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisBulkOperations(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * One MGET; the result lines up with {@code keys}, null where nothing is stored.
+     */
+    public List<Object> multiGet(RedisCache cache, List<?> keys) {
+        byte[][] rawKeys = keys.stream()
+                .map(key -> rawKey(cache, key))
+                .toArray(byte[][]::new);
+
+        List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] raw = rawValues != null ? rawValues.get(i) : null;
+            values.add(raw != null
+                    ? cache.getCacheConfiguration().getValueSerializationPair().read(ByteBuffer.wrap(raw))
+                    : null);
+        }
+        return values;
+    }
+
+    /**
+     * Pipelined SET ... PX for every entry, a single round trip regardless of size.
+     */
+    public void multiSet(RedisCache cache, Map<?, ?> entries, Duration ttl) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                entries.forEach((key, value) -> connection.stringCommands().set(
+                        rawKey(cache, key),
+                        ByteUtils.getBytes(config.getValueSerializationPair().write(value)),
+                        Expiration.from(ttl),
+                        RedisStringCommands.SetOption.upsert()));
+            } finally {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    private static byte[] rawKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String cacheKey = config.getKeyPrefixFor(cache.getName()) + key;
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(cacheKey));
+    }
+}
@@ -0,0 +1,44 @@
+package ru.nexus.product.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster-wide "one loader per key" lock on plain SET NX PX. Redis trouble makes it fail open,
+ * a duplicate load is cheaper than a failed request.
+ */
+@Slf4j
+public class RedisLoadLock {
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLoadLock(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean tryAcquire(String lockKey, String token, Duration ttl) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, ttl));
+        } catch (Exception e) {
+            log.warn("Failed to acquire cache load lock: {}. Error: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    public void release(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("Failed to release cache load lock: {}. Error: {}", lockKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package ru.nexus.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import ru.nexus.product.config.ProductCacheProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Cache with a short-lived in-process L1 in front of the shared Redis L2.
+ * Every write or eviction is broadcast so other nodes drop their L1 copy.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} are single-flight: one per key on this node,
+ * and, through a Redis lock, one per key across the cluster. Hot entries are refreshed
+ * in the background shortly before their Redis copy expires (XFetch), so they never miss.
+ * Refreshes load through the cache's {@link CacheRefresher}: the loader a read passes in belongs
+ * to that read and is not called again once it has returned.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final RedisCache remote;
+    private final RedisBulkOperations bulk;
+    private final com.github.benmanes.caffeine.cache.Cache<String, CacheEnvelope> local;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheGenerations generations;
+    private final RedisLoadLock loadLock;
+    private final Executor refreshExecutor;
+    private final CacheRefresher refresher;
+    private final Duration ttl;
+    private final ProductCacheProperties.Stampede stampede;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // Smoothed load time, stamped on values that are put rather than loaded so XFetch can refresh them too
+    private volatile long typicalComputeMillis;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter earlyRefreshes;
+
+    public TwoTierCache(String name,
+                        RedisCache remote,
+                        RedisBulkOperations bulk,
+                        com.github.benmanes.caffeine.cache.Cache<String, CacheEnvelope> local,
+                        CacheInvalidationBus invalidationBus,
+                        CacheGenerations generations,
+                        RedisLoadLock loadLock,
+                        Executor refreshExecutor,
+                        CacheRefresher refresher,
+                        Duration ttl,
+                        ProductCacheProperties.Stampede stampede,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.bulk = bulk;
+        this.local = local;
+        this.invalidationBus = invalidationBus;
+        this.generations = generations;
+        this.loadLock = loadLock;
+        this.refreshExecutor = refreshExecutor;
+        this.refresher = refresher;
+        this.ttl = ttl;
+        this.stampede = stampede;
+        this.l1Hits = tierCounter(meterRegistry, "l1", "hit");
+        this.l1Misses = tierCounter(meterRegistry, "l1", "miss");
+        this.l2Hits = tierCounter(meterRegistry, "l2", "hit");
+        this.l2Misses = tierCounter(meterRegistry, "l2", "miss");
+        this.earlyRefreshes = Counter.builder("product.cache.early_refresh")
+                .description("Entries reloaded ahead of their expiry")
+                .tag("cache", name)
+                .register(meterRegistry);
+        meterRegistry.gauge("product.cache.l1.size", Tags.of("cache", name),
+                local, com.github.benmanes.caffeine.cache.Cache::estimatedSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CacheEnvelope envelope = lookup(key);
+        return envelope != null ? new SimpleValueWrapper(envelope.getValue()) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CacheEnvelope envelope = lookup(key);
+        if (envelope != null) {
+            if (refresher != null && shouldRefreshEarly(envelope)) {
+                refreshAsync(key);
+            }
+            return (T) envelope.getValue();
+        }
+        return (T) loadOnce(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        store(key, value, typicalComputeMillis);
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+
+    /**
+     * Bulk read: L1 first, then a single MGET for the rest. Keys with no entry are left out of
+     * the result; bulk reads never load.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            CacheEnvelope envelope = localIfCurrent(key);
+            if (envelope != null) {
+                l1Hits.increment();
+                found.put(key, envelope.getValue());
+            } else {
+                l1Misses.increment();
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+
+        List<Object> values = bulk.multiGet(remote, remoteKeys);
+        for (int i = 0; i < remoteKeys.size(); i++) {
+            Object key = remoteKeys.get(i);
+            CacheEnvelope envelope = values.get(i) != null ? CacheEnvelope.wrap(values.get(i)) : null;
+            if (envelope == null || !generations.isCurrent(envelope)) {
+                l2Misses.increment();
+                continue;
+            }
+            l2Hits.increment();
+            local.put(localKey(key), envelope);
+            found.put(key, envelope.getValue());
+        }
+        return found;
+    }
+
+    /**
+     * Bulk write of freshly loaded values in one pipelined round trip. Like a single load,
+     * this does not broadcast: nothing stale can be sitting in other nodes' L1 for a miss.
+     */
+    public void putAll(Map<?, ?> values) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        Map<Object, CacheEnvelope> envelopes = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                envelopes.put(key, new CacheEnvelope(value, expiresAt, typicalComputeMillis, generations.scopeGeneration(value)));
+            }
+        });
+        bulk.multiSet(remote, envelopes, ttl);
+        envelopes.forEach((key, envelope) -> local.put(localKey(key), envelope));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationBus.publishEvict(name, localKey(key));
+    }
+
+    /**
+     * Evicts this node's copies without telling the others, for callers that already run on every node.
+     */
+    public void evictNoBroadcast(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+    }
+
+    /**
+     * Like {@link #evictNoBroadcast} but keeps a tier whose value {@code current} accepts, so an
+     * entry the write path has just put is not thrown away again.
+     */
+    public void evictUnlessCurrent(Object key, Predicate<Object> current) {
+        CacheEnvelope cached = localIfCurrent(key);
+        if (cached == null || !current.test(cached.getValue())) {
+            local.invalidate(localKey(key));
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null && !current.test(CacheEnvelope.wrap(wrapper.get()).getValue())) {
+            remote.evict(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private CacheEnvelope lookup(Object key) {
+        CacheEnvelope envelope = localIfCurrent(key);
+        if (envelope != null) {
+            l1Hits.increment();
+            return envelope;
+        }
+        l1Misses.increment();
+
+        envelope = lookupRemote(key);
+        if (envelope == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        return envelope;
+    }
+
+    private CacheEnvelope lookupRemote(Object key) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        CacheEnvelope envelope = CacheEnvelope.wrap(wrapper.get());
+        if (!generations.isCurrent(envelope)) {
+            return null;
+        }
+        local.put(localKey(key), envelope);
+        return envelope;
+    }
+
+    private CacheEnvelope localIfCurrent(Object key) {
+        CacheEnvelope envelope = local.getIfPresent(localKey(key));
+        if (envelope != null && !generations.isCurrent(envelope)) {
+            local.invalidate(localKey(key));
+            return null;
+        }
+        return envelope;
+    }
+
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Object value = loadWithClusterLock(key, valueLoader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, mine);
+        }
+    }
+
+    private Object loadWithClusterLock(Object key, Callable<?> valueLoader) {
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        if (loadLock.tryAcquire(lockKey, token, stampede.lockTtl())) {
+            try {
+                return loadAndStore(key, valueLoader);
+            } finally {
+                loadLock.release(lockKey, token);
+            }
+        }
+
+        // Another node is loading this key, give it a moment to land in Redis
+        long deadline = System.nanoTime() + stampede.lockWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(stampede.pollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CacheEnvelope envelope = lookupRemote(key);
+            if (envelope != null) {
+                return envelope.getValue();
+            }
+        }
+        log.debug("Gave up waiting for cache load lock: {}", lockKey);
+        return loadAndStore(key, valueLoader);
+    }
+
+    private void refreshAsync(Object key) {
+        String localKey = localKey(key);
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                String lockKey = lockKey(key);
+                String token = UUID.randomUUID().toString();
+                try {
+                    // Somebody else holds the lock, so somebody else is already refreshing
+                    if (loadLock.tryAcquire(lockKey, token, stampede.lockTtl())) {
+                        try {
+                            earlyRefreshes.increment();
+                            loadAndStore(key, () -> refresher.load(key));
+                        } finally {
+                            loadLock.release(lockKey, token);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Early refresh failed for cache: {} key: {}. Error: {}", name, localKey, e.getMessage());
+                } finally {
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) {
+        long started = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long computeMillis = System.currentTimeMillis() - started;
+        long typical = typicalComputeMillis;
+        typicalComputeMillis = typical == 0 ? computeMillis : (typical * 7 + computeMillis) / 8;
+        if (value != null) {
+            store(key, value, computeMillis);
+        }
+        return value;
+    }
+
+    private void store(Object key, Object value, long computeMillis) {
+        CacheEnvelope envelope = new CacheEnvelope(value, System.currentTimeMillis() + ttl.toMillis(),
+                computeMillis, generations.scopeGeneration(value));
+        remote.put(key, envelope);
+        local.put(localKey(key), envelope);
+    }
+
+    /**
+     * XFetch: refresh with a probability that rises as expiry approaches, faster for values
+     * that take longer to compute. Concurrent readers rarely pick the same moment.
+     */
+    private boolean shouldRefreshEarly(CacheEnvelope envelope) {
+        if (envelope.getComputeMillis() <= 0 || stampede.earlyRefreshBeta() <= 0) {
+            return false;
+        }
+        double gap = -envelope.getComputeMillis() * stampede.earlyRefreshBeta()
+                * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= envelope.getExpiresAt();
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String lockKey(Object key) {
+        return name + "::lock::" + localKey(key);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter tierCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("product.cache.requests")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.nexus.product.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import ru.nexus.product.config.ProductCacheProperties;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class TwoTierCacheManager implements CacheManager {
+
+    private final RedisCacheManager redisCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheGenerations generations;
+    private final RedisLoadLock loadLock;
+    private final RedisBulkOperations bulk;
+    private final MeterRegistry meterRegistry;
+    private final ProductCacheProperties properties;
+    private final Map<String, CacheRefresher> refreshers;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    // Early refreshes are best effort: a small pool, and whatever does not fit is dropped
+    private final ExecutorService refreshExecutor = new ThreadPoolExecutor(1, 4, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256), new ThreadPoolExecutor.DiscardPolicy());
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager,
+                               CacheInvalidationBus invalidationBus,
+                               CacheGenerations generations,
+                               RedisLoadLock loadLock,
+                               RedisBulkOperations bulk,
+                               MeterRegistry meterRegistry,
+                               ProductCacheProperties properties,
+                               List<CacheRefresher> refreshers) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.generations = generations;
+        this.loadLock = loadLock;
+        this.bulk = bulk;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.refreshers = refreshers.stream()
+                .collect(Collectors.toMap(CacheRefresher::cacheName, Function.identity()));
+        invalidationBus.bind(caches::get);
+        // Keys of the old generation are unreachable in Redis already, L1 has to catch up
+        generations.bind(name -> {
+            TwoTierCache cache = caches.get(name);
+            if (cache != null) {
+                cache.clearLocal();
+            }
+        });
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private TwoTierCache createCache(String name) {
+        ProductCacheProperties.L1 l1 = properties.l1();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(l1.ttl());
+        if (!l1.enabled()) {
+            // Keeps the single-flight and refresh logic, just without holding anything locally
+            builder.maximumSize(0);
+        } else if (l1.maxWeight() > 0) {
+            builder.maximumWeight(l1.maxWeight())
+                    .weigher((key, envelope) -> CacheWeights.estimate(((CacheEnvelope) envelope).getValue()));
+        } else {
+            builder.maximumSize(l1.maxSize());
+        }
+        return new TwoTierCache(name, (RedisCache) redisCacheManager.getCache(name), bulk, builder.build(),
+                invalidationBus, generations, loadLock, refreshExecutor, refreshers.get(name),
+                properties.ttl(), properties.stampede(), meterRegistry);
+    }
+}
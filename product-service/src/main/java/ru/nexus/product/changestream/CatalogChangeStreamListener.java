@@ -0,0 +1,259 @@
+package ru.nexus.product.changestream;
+
+import com.mongodb.MongoServerException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+import ru.nexus.product.cache.CacheGenerations;
+import ru.nexus.product.cache.TwoTierCache;
+import ru.nexus.product.cache.TwoTierCacheManager;
+import ru.nexus.product.config.ProductCacheProperties;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.index.CatalogIndexes;
+import ru.nexus.product.mapper.ProductMapper;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the catalog collection's change stream and keeps the products cache and the in-memory
+ * indexes in step with every write, whoever made it. Every node runs one: each drops its own L1
+ * and updates its own indexes; the Redis eviction is repeated per node but is an idempotent DEL.
+ * While it runs it is the only index maintainer, see {@link CatalogIndexes}. An updated entry that
+ * already matches the document, as after a write-through put, is kept rather than evicted.
+ * <p>
+ * The stream position is checkpointed at most once per interval, a restart replays at most that
+ * much, which is harmless since eviction and re-indexing are idempotent. If the oplog no longer
+ * has the checkpoint, everything derived is thrown away and rebuilt.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "product.cache.change-stream.enabled", havingValue = "true")
+public class CatalogChangeStreamListener
+        implements MessageListener<ChangeStreamDocument<Document>, Document>, SmartLifecycle {
+
+    static final String SUBSCRIBER = "product-cache-sync";
+    private static final String PRODUCTS_CACHE = "products";
+    // ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(280, 286);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final MongoTemplate mongoTemplate;
+    private final ResumeTokenStore resumeTokenStore;
+    private final TwoTierCacheManager cacheManager;
+    private final CacheGenerations cacheGenerations;
+    private final CatalogIndexes catalogIndexes;
+    private final ProductMapper productMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration checkpointInterval;
+    private final ScheduledExecutorService restarts = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("catalog-change-stream-restart").daemon().factory());
+
+    private MessageListenerContainer container;
+    private Subscription subscription;
+    private volatile BsonDocument lastToken;
+    private volatile long lastCheckpointAt;
+    private volatile boolean running;
+
+    public CatalogChangeStreamListener(MongoTemplate mongoTemplate,
+                                       ResumeTokenStore resumeTokenStore,
+                                       TwoTierCacheManager cacheManager,
+                                       CacheGenerations cacheGenerations,
+                                       CatalogIndexes catalogIndexes,
+                                       ProductMapper productMapper,
+                                       MeterRegistry meterRegistry,
+                                       ProductCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.resumeTokenStore = resumeTokenStore;
+        this.cacheManager = cacheManager;
+        this.cacheGenerations = cacheGenerations;
+        this.catalogIndexes = catalogIndexes;
+        this.productMapper = productMapper;
+        this.meterRegistry = meterRegistry;
+        this.checkpointInterval = properties.changeStream().checkpointInterval();
+    }
+
+    @Override
+    public void start() {
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.start();
+        running = true;
+        lastToken = resumeTokenStore.load(SUBSCRIBER);
+        subscribe(lastToken);
+        log.info("Catalog change stream started {}", lastToken != null ? "from checkpoint" : "from now");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        restarts.shutdownNow();
+        if (container != null) {
+            container.stop();
+        }
+        if (lastToken != null) {
+            resumeTokenStore.save(SUBSCRIBER, lastToken);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void onMessage(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null) {
+            return;
+        }
+        meterRegistry.counter("product.change_stream.events", "operation",
+                event.getOperationTypeString()).increment();
+
+        switch (event.getOperationType()) {
+            case INSERT -> index(idOf(event), productOf(event));
+            case UPDATE, REPLACE -> {
+                String id = idOf(event);
+                Product product = productOf(event);
+                if (product != null) {
+                    ProductResponse current = productMapper.toResponse(product);
+                    cache().evictUnlessCurrent(id, current::equals);
+                } else {
+                    evict(id);
+                }
+                index(id, product);
+            }
+            case DELETE -> {
+                String id = idOf(event);
+                evict(id);
+                catalogIndexes.remove(id);
+            }
+            case DROP, DROP_DATABASE, RENAME -> resync();
+            case INVALIDATE -> {
+                resync();
+                // The cursor is closed after an invalidate; start after it
+                checkpoint(event.getResumeToken(), true);
+                restarts.execute(() -> resubscribe(lastToken));
+                return;
+            }
+            default -> {
+            }
+        }
+        checkpoint(event.getResumeToken(), false);
+    }
+
+    private void subscribe(BsonDocument token) {
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> request = ChangeStreamRequest.builder(this)
+                .collection(mongoTemplate.getCollectionName(Product.class))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        if (token != null) {
+            request.startAfter(token);
+        }
+        subscription = container.register(request.build(), Document.class, this::onError);
+    }
+
+    private synchronized void resubscribe(BsonDocument token) {
+        if (!running) {
+            return;
+        }
+        if (subscription != null) {
+            container.remove(subscription);
+        }
+        subscribe(token);
+    }
+
+    private void onError(Throwable error) {
+        if (!running) {
+            return;
+        }
+        if (isHistoryLost(error)) {
+            log.warn("Catalog change stream checkpoint is gone from the oplog, rebuilding derived state");
+            resumeTokenStore.clear(SUBSCRIBER);
+            lastToken = null;
+            resync();
+            restarts.execute(() -> resubscribe(null));
+            return;
+        }
+        log.error("Catalog change stream failed, resuming in {}. Error: {}", RETRY_DELAY, error.getMessage());
+        restarts.schedule(() -> resubscribe(lastToken), RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void index(String id, Product product) {
+        if (product == null) {
+            // Deleted again before the lookup; the delete event follows
+            catalogIndexes.remove(id);
+            return;
+        }
+        catalogIndexes.put(product);
+    }
+
+    private Product productOf(ChangeStreamDocument<Document> event) {
+        Document document = event.getFullDocument();
+        return document != null ? mongoTemplate.getConverter().read(Product.class, document) : null;
+    }
+
+    private void evict(String id) {
+        cache().evictNoBroadcast(id);
+    }
+
+    private TwoTierCache cache() {
+        return cacheManager.getCache(PRODUCTS_CACHE);
+    }
+
+    /**
+     * Cache entries of any age may be wrong now: retire the whole generation and re-stream the indexes.
+     */
+    private void resync() {
+        cacheGenerations.bumpCache(PRODUCTS_CACHE);
+        catalogIndexes.rebuildAll();
+    }
+
+    private void checkpoint(BsonDocument token, boolean force) {
+        lastToken = token;
+        long now = System.currentTimeMillis();
+        if (force || now - lastCheckpointAt >= checkpointInterval.toMillis()) {
+            try {
+                resumeTokenStore.save(SUBSCRIBER, token);
+                lastCheckpointAt = now;
+            } catch (RuntimeException e) {
+                // Next event tries again; worst case a restart replays a little more
+                log.warn("Failed to save change stream checkpoint. Error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String idOf(ChangeStreamDocument<Document> event) {
+        BsonValue id = event.getDocumentKey() != null ? event.getDocumentKey().get("_id") : null;
+        if (id instanceof BsonObjectId objectId) {
+            return objectId.getValue().toHexString();
+        }
+        return id != null && id.isString() ? id.asString().getValue() : String.valueOf(id);
+    }
+
+    private static boolean isHistoryLost(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoServerException serverError && HISTORY_LOST_CODES.contains(serverError.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
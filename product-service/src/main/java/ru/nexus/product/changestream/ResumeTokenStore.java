@@ -0,0 +1,44 @@
+package ru.nexus.product.changestream;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Last processed change stream position per subscriber, so a restart resumes instead of
+ * missing or replaying everything.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResumeTokenStore {
+
+    static final String COLLECTION = "change_stream_checkpoints";
+
+    private final MongoTemplate mongoTemplate;
+
+    public BsonDocument load(String subscriber) {
+        Document checkpoint = mongoTemplate.findOne(
+                new Query(Criteria.where("_id").is(subscriber)), Document.class, COLLECTION);
+        if (checkpoint == null || checkpoint.get("token") == null) {
+            return null;
+        }
+        return checkpoint.get("token", Document.class).toBsonDocument();
+    }
+
+    public void save(String subscriber, BsonDocument token) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(subscriber)),
+                new Update().set("token", Document.parse(token.toJson())).set("updatedAt", Instant.now()),
+                COLLECTION);
+    }
+
+    public void clear(String subscriber) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(subscriber)), COLLECTION);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.nexus.product.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import ru.nexus.product.cache.ProductCacheSerializer;
+
+import java.time.Duration;
+
+@ConfigurationProperties("product.cache")
+public record ProductCacheProperties(
+        @DefaultValue("10m") Duration ttl,
+        // JSON until every node can read the binary form, then BINARY; both are always readable
+        @DefaultValue("json") ProductCacheSerializer.Format serializer,
+        @DefaultValue L1 l1,
+        @DefaultValue Stampede stampede,
+        // Off once the change stream keeps the cache current; the write path then leaves it alone
+        @DefaultValue("true") boolean writeThrough,
+        @DefaultValue ChangeStream changeStream) {
+
+    public record L1(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("30s") Duration ttl,
+            // Count bound; ignored when max-weight is set
+            @DefaultValue("10000") long maxSize,
+            // Approximate bytes; 0 disables weight-based eviction
+            @DefaultValue("0") long maxWeight) {
+    }
+
+    public record Stampede(
+            // Upper bound for one load; the lock frees itself if the loading node dies
+            @DefaultValue("5s") Duration lockTtl,
+            // How long other nodes wait for the lock holder before loading themselves
+            @DefaultValue("500ms") Duration lockWait,
+            @DefaultValue("25ms") Duration pollInterval,
+            // XFetch beta: higher refreshes earlier, 0 turns early refresh off
+            @DefaultValue("1.0") double earlyRefreshBeta) {
+    }
+
+    public record ChangeStream(
+            @DefaultValue("false") boolean enabled,
+            // Upper bound on what a restart replays
+            @DefaultValue("1s") Duration checkpointInterval) {
+    }
+}
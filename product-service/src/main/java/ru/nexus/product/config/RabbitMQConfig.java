@@ -3,33 +3,50 @@ package ru.nexus.product.config;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.nexus.common.event.codec.EventMessageConverter;
+import ru.nexus.common.event.codec.EventSchemas;
 
 @Configuration
 public class RabbitMQConfig {
 
+    // Routes by a consistent hash of the routing key, which is the SKU: one SKU, one partition queue.
+    // Partition queues and their bindings belong to the consumers, so they choose the partition count.
+    public static final String PRODUCT_EVENTS_EXCHANGE = "product.events";
+    public static final String CONSISTENT_HASH_EXCHANGE_TYPE = "x-consistent-hash";
+
+    // Pre-partitioning route, still fed by outbox entries written before it; forwarded into the
+    // partitions under its fixed routing key, so all of those land in one partition, in order
     public static final String PRODUCT_EXCHANGE = "product.exchange";
-    public static final String PRODUCT_CREATED_QUEUE = "product.created.queue";
     public static final String PRODUCT_CREATED_ROUTING_KEY = "product.created";
 
+    @Bean
+    public CustomExchange productEventsExchange() {
+        return new CustomExchange(PRODUCT_EVENTS_EXCHANGE, CONSISTENT_HASH_EXCHANGE_TYPE, true, false);
+    }
+
     @Bean
     public DirectExchange productExchange() {
         return new DirectExchange(PRODUCT_EXCHANGE);
     }
 
     @Bean
-    public Queue productCreatedQueue() {
-        return new Queue(PRODUCT_CREATED_QUEUE);
+    public Binding legacyProductEventsBinding(CustomExchange productEventsExchange, DirectExchange productExchange) {
+        return BindingBuilder.bind(productEventsExchange).to(productExchange).with(PRODUCT_CREATED_ROUTING_KEY);
     }
 
-    @Bean
-    public Binding binding(Queue productCreatedQueue, DirectExchange productExchange) {
-        return BindingBuilder.bind(productCreatedQueue).to(productExchange).with(PRODUCT_CREATED_ROUTING_KEY);
+    /**
+     * Routing key for an event about this SKU. Events without one share a single partition.
+     */
+    public static String partitionKey(String skuCode) {
+        return skuCode != null ? skuCode : "";
     }
 
+    // Reads JSON and binary events; writes binary only once every consumer runs a version that reads it
     @Bean
-    public MessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter(@Value("${product.events.format:json}") EventMessageConverter.Format format) {
+        return new EventMessageConverter(EventSchemas.defaults(), new Jackson2JsonMessageConverter(), format);
     }
 }
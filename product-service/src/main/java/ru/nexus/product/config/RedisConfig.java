@@ -4,19 +4,33 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import ru.nexus.product.cache.CacheGenerations;
+import ru.nexus.product.cache.CacheInvalidationBus;
+import ru.nexus.product.cache.CacheRefresher;
+import ru.nexus.product.cache.CacheWritePolicy;
+import ru.nexus.product.cache.ProductCacheSerializer;
+import ru.nexus.product.cache.RedisBulkOperations;
+import ru.nexus.product.cache.RedisLoadLock;
+import ru.nexus.product.cache.TwoTierCacheManager;
 
-import java.time.Duration;
-
+@Slf4j
 @Configuration
+@EnableConfigurationProperties(ProductCacheProperties.class)
 public class RedisConfig {
 
     @Bean
@@ -34,19 +48,61 @@ public class RedisConfig {
         return template;
     }
 
-    @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper());
+    @Bean(destroyMethod = "shutdown")
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            CacheInvalidationBus cacheInvalidationBus,
+                                            CacheGenerations cacheGenerations,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            MeterRegistry meterRegistry,
+                                            ProductCacheProperties properties,
+                                            ObjectProvider<CacheRefresher> cacheRefreshers) {
+        ProductCacheSerializer serializer = new ProductCacheSerializer(properties.serializer(),
+                new GenericJackson2JsonRedisSerializer(objectMapper()));
 
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(properties.ttl())
+                .computePrefixWith(cacheGenerations::prefixFor)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, cacheInvalidationBus, cacheGenerations,
+                new RedisLoadLock(stringRedisTemplate), new RedisBulkOperations(connectionFactory),
+                meterRegistry, properties, cacheRefreshers.orderedStream().toList());
+    }
+
+    @Bean
+    public CacheWritePolicy cacheWritePolicy(ProductCacheProperties properties) {
+        if (!properties.writeThrough() && !properties.changeStream().enabled()) {
+            log.warn("Product cache write-through and change stream are both off; entries stay stale until their TTL");
+        }
+        return new CacheWritePolicy(properties.writeThrough());
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate);
+    }
+
+    @Bean
+    public CacheGenerations cacheGenerations(StringRedisTemplate stringRedisTemplate) {
+        return new CacheGenerations(stringRedisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CacheInvalidationBus cacheInvalidationBus,
+                                                                       CacheGenerations cacheGenerations) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, CacheInvalidationBus.TOPIC);
+        container.addMessageListener(cacheGenerations, CacheGenerations.TOPIC);
+        return container;
     }
 
     private ObjectMapper objectMapper() {
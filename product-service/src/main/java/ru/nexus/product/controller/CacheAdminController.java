@@ -0,0 +1,33 @@
+package ru.nexus.product.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nexus.product.cache.CacheGenerations;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/cache")
+@RequiredArgsConstructor
+public class CacheAdminController {
+    private final CacheGenerations cacheGenerations;
+
+    // Инвалидация всего кэша за O(1): старые ключи становятся недостижимыми и истекают по TTL
+    @PostMapping("/{cacheName}/invalidate")
+    public ResponseEntity<Map<String, Long>> invalidateCache(@PathVariable String cacheName) {
+        log.info("REST request to invalidate cache: {}", cacheName);
+        return ResponseEntity.ok(Map.of("generation", cacheGenerations.bumpCache(cacheName)));
+    }
+
+    @PostMapping("/categories/{category}/invalidate")
+    public ResponseEntity<Map<String, Long>> invalidateCategory(@PathVariable String category) {
+        log.info("REST request to invalidate cached products of category: {}", category);
+        return ResponseEntity.ok(Map.of("generation", cacheGenerations.bumpCategory(category)));
+    }
+}
@@ -5,12 +5,39 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.nexus.product.dto.CursorPage;
+import ru.nexus.product.dto.FacetSearchResponse;
+import ru.nexus.product.dto.ProductBatchRequest;
+import ru.nexus.product.dto.ProductBatchResponse;
+import ru.nexus.product.dto.ProductImportResponse;
+import ru.nexus.product.dto.ProductPatchRequest;
 import ru.nexus.product.dto.ProductRequest;
 import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.repository.ProductFilter;
+import ru.nexus.product.repository.ProductSort;
+import ru.nexus.product.service.FacetSearchService;
+import ru.nexus.product.service.ProductBatchService;
+import ru.nexus.product.service.ProductExportService;
+import ru.nexus.product.service.ProductImportService;
+import ru.nexus.product.service.ProductSearchService;
 import ru.nexus.product.service.ProductService;
+import ru.nexus.product.warmup.AccessFrequencySketch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -18,6 +45,15 @@ import ru.nexus.product.service.ProductService;
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final ProductBatchService productBatchService;
+    private final FacetSearchService facetSearchService;
+    private final ProductSearchService productSearchService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final AccessFrequencySketch accessFrequencySketch;
+
+    private static final String ATTRIBUTE_PARAM_PREFIX = "attr.";
+    private static final String EXPORT_WATERMARK_HEADER = "X-Export-Watermark";
 
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> getAllProducts(Pageable pageable) {
@@ -25,9 +61,59 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
 
+    // Курсорная пагинация: без count() и skip, стоимость страницы не зависит от глубины
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> getProductsAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "NEWEST") ProductSort sort,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        log.info("REST request to get products after cursor: {}", cursor);
+        return ResponseEntity.ok(productService.getProductsAfter(cursor,
+                new ProductFilter(category, minPrice, maxPrice), sort, size, withTotal));
+    }
+
+    // Поиск по названию и SKU с автодополнением и допуском опечаток
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam("q") String query,
+                                                                @RequestParam(defaultValue = "10") int size) {
+        log.info("REST request to search products: {}", query);
+        return ResponseEntity.ok(productSearchService.search(query, size));
+    }
+
+    // Фильтрация по атрибутам через in-memory индекс: attr.<name>=<value>, счётчики по facets=brand,color
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSearchResponse> searchFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) List<String> facets,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam MultiValueMap<String, String> params) {
+        log.info("REST request to search products by facets");
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        params.forEach((name, values) -> {
+            if (name.startsWith(ATTRIBUTE_PARAM_PREFIX)) {
+                filters.put(name.substring(ATTRIBUTE_PARAM_PREFIX.length()), values);
+            }
+        });
+        return ResponseEntity.ok(facetSearchService.search(category, filters,
+                facets != null ? facets : List.of(), size));
+    }
+
+    // Пакетное получение по ID и SKU: один MGET в Redis и один $in-запрос в Mongo на промахи
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsBatch(@RequestBody @Valid ProductBatchRequest request) {
+        log.info("REST request to get products batch");
+        return ResponseEntity.ok(productBatchService.getProducts(request));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable String id) {
         log.info("REST request to get product by ID: {}", id);
+        // Counted here, not in the service: cache hits never reach it
+        accessFrequencySketch.record(id);
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
@@ -38,6 +124,33 @@ public class ProductController {
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
 
+    // Массовый импорт из NDJSON (один товар на строку): upsert по SKU, отчёт об ошибках по номерам строк
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ProductImportResponse> importProducts(InputStream body) throws IOException {
+        log.info("REST request to import products");
+        return ResponseEntity.ok(productImportService.importProducts(body));
+    }
+
+    // Выгрузка каталога в NDJSON (или gzip) прямо из курсора Mongo; since — только изменённые после отметки
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("REST request to export products updated since {}", since);
+        productExportService.validateFields(fields);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(EXPORT_WATERMARK_HEADER, productExportService.nextWatermark().toString());
+        if (gzip) {
+            response.contentType(MediaType.parseMediaType("application/gzip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog.ndjson.gz\"");
+        } else {
+            response.contentType(MediaType.parseMediaType("application/x-ndjson"));
+        }
+        return response.body(out -> productExportService.export(out, since, fields, gzip));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(@PathVariable String id,
                                                          @RequestBody @Valid ProductRequest productRequest) {
@@ -45,6 +158,14 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, productRequest));
     }
 
+    // Частичное обновление одним findAndModify с проверкой версии
+    @PatchMapping("/{id}")
+    public ResponseEntity<ProductResponse> patchProduct(@PathVariable String id,
+                                                        @RequestBody @Valid ProductPatchRequest patchRequest) {
+        log.info("REST request to patch product ID: {}", id);
+        return ResponseEntity.ok(productService.patchProduct(id, patchRequest));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
         log.info("REST request to delete product ID: {}", id);
@@ -0,0 +1,13 @@
+package ru.nexus.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One slice of a cursor listing. {@code nextCursor} is opaque and null on the last page;
+ * {@code total} is only filled in when explicitly requested.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPage<T>(List<T> content, String nextCursor, Long total) {
+}
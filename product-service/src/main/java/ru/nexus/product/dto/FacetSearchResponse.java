@@ -0,0 +1,20 @@
+package ru.nexus.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResponse {
+    private long total;
+    private List<ProductResponse> products;
+    // attribute -> value -> number of matching products
+    private Map<String, Map<String, Long>> facets;
+}
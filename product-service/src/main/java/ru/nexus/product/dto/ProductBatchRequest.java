@@ -0,0 +1,20 @@
+package ru.nexus.product.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchRequest {
+    @Size(max = 200, message = "At most 200 ids per request")
+    private List<String> ids;
+    @Size(max = 200, message = "At most 200 SKU codes per request")
+    private List<String> skuCodes;
+}
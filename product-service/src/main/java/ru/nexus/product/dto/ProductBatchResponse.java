@@ -0,0 +1,19 @@
+package ru.nexus.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    private List<ProductResponse> products;
+    // Requested ids / SKU codes that matched nothing
+    private List<String> missingIds;
+    private List<String> missingSkuCodes;
+}
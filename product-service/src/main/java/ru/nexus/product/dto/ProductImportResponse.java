@@ -0,0 +1,34 @@
+package ru.nexus.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private long received;
+    private long inserted;
+    private long updated;
+    private long failed;
+    // At most product.import.max-reported-errors entries; failed has the full count
+    private List<LineError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        // 1-based line number in the uploaded feed
+        private long line;
+        private String skuCode;
+        private Map<String, String> errors;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.nexus.product.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Partial update: null fields are left untouched, {@code attributes} replaces the whole map.
+ * {@code version}, when given, must match the stored one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPatchRequest {
+    @Pattern(regexp = ".*\\S.*", message = "SKU Code must not be blank")
+    private String skuCode;
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    private String title;
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be positive")
+    private BigDecimal price;
+    @Pattern(regexp = ".*\\S.*", message = "Category must not be blank")
+    private String category;
+    private Map<String, Object> attributes;
+    private Long version;
+}
@@ -19,4 +19,5 @@ public class ProductResponse {
     private BigDecimal price;
     private String category;
     private Map<String, Object> attributes;
+    private Long version;
 }
\ No newline at end of file
@@ -8,7 +8,11 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -17,13 +21,24 @@ import java.util.Map;
 @Data
 @Builder
 @Document(collection = "catalog")
+// Seek keys for the cursor listing, one per ProductSort with and without a category
+@CompoundIndex(name = "created_at_id", def = "{'createdAt': 1, '_id': 1}")
+@CompoundIndex(name = "category_created_at_id", def = "{'category': 1, 'createdAt': 1, '_id': 1}")
+@CompoundIndex(name = "category_price_id", def = "{'category': 1, 'price': 1, '_id': 1}")
+@CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
+// Export order and updatedAt watermark
+@CompoundIndex(name = "updated_at_id", def = "{'updatedAt': 1, '_id': 1}")
 @AllArgsConstructor
 @NoArgsConstructor
 public class Product {
     @Id
     private String id;
+    // Sparse: documents created before SKUs were mandatory have none
+    @Indexed(unique = true, sparse = true)
     private String skuCode;
     private String title;
+    // Decimal128 so range filters and sorts are numeric; older documents hold strings until migrated
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
     private String category;
     private Map<String, Object> attributes;
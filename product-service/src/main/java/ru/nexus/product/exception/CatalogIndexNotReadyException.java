@@ -0,0 +1,7 @@
+package ru.nexus.product.exception;
+
+public class CatalogIndexNotReadyException extends RuntimeException {
+    public CatalogIndexNotReadyException() {
+        super("Catalog index is still being built, retry shortly");
+    }
+}
@@ -0,0 +1,7 @@
+package ru.nexus.product.exception;
+
+public class FacetNotIndexedException extends RuntimeException {
+    public FacetNotIndexedException(String attribute) {
+        super("Attribute: " + attribute + " is not indexed for filtering");
+    }
+}
@@ -2,6 +2,7 @@ package ru.nexus.product.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -39,6 +40,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return problem;
     }
 
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ProblemDetail handleDuplicateKey(DuplicateKeyException ex) {
+        log.warn("Duplicate key: {}", ex.getMessage());
+
+        // skuCode is the only unique field on a product
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.CONFLICT,
+                "A product with this SKU code already exists."
+        );
+        problem.setTitle("Duplicate SKU");
+        problem.setType(URI.create("https://api.nexus.ru/errors/duplicate-sku"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
     @ExceptionHandler(ProductNotFoundException.class)
     public ProblemDetail handleProductNotFound(ProductNotFoundException ex) {
         log.warn("Product not found: {}", ex.getMessage());
@@ -54,6 +71,66 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return problem;
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ProblemDetail handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid cursor: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage()
+        );
+        problem.setTitle("Invalid Cursor");
+        problem.setType(URI.create("https://api.nexus.ru/errors/invalid-cursor"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
+    @ExceptionHandler(UnknownExportFieldException.class)
+    public ProblemDetail handleUnknownExportField(UnknownExportFieldException ex) {
+        log.warn("Unknown export field: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage()
+        );
+        problem.setTitle("Unknown Export Field");
+        problem.setType(URI.create("https://api.nexus.ru/errors/unknown-export-field"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
+    @ExceptionHandler(FacetNotIndexedException.class)
+    public ProblemDetail handleFacetNotIndexed(FacetNotIndexedException ex) {
+        log.warn("Facet not indexed: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage()
+        );
+        problem.setTitle("Facet Not Indexed");
+        problem.setType(URI.create("https://api.nexus.ru/errors/facet-not-indexed"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
+    @ExceptionHandler(CatalogIndexNotReadyException.class)
+    public ProblemDetail handleCatalogIndexNotReady(CatalogIndexNotReadyException ex) {
+        log.warn("Catalog index not ready: {}", ex.getMessage());
+
+        var problem = ProblemDetail.forStatusAndDetail(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage()
+        );
+        problem.setTitle("Index Not Ready");
+        problem.setType(URI.create("https://api.nexus.ru/errors/index-not-ready"));
+        problem.setProperty("timestamp", Instant.now());
+
+        return problem;
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex,
@@ -0,0 +1,7 @@
+package ru.nexus.product.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Cursor: " + cursor + " is malformed or expired");
+    }
+}
@@ -0,0 +1,9 @@
+package ru.nexus.product.exception;
+
+import java.util.Collection;
+
+public class UnknownExportFieldException extends RuntimeException {
+    public UnknownExportFieldException(String field, Collection<String> allowed) {
+        super("Field: " + field + " cannot be exported, allowed fields are " + allowed);
+    }
+}
@@ -0,0 +1,175 @@
+package ru.nexus.product.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.exception.CatalogIndexNotReadyException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Lifecycle shared by the in-memory catalog indexes: built by streaming a projection of the
+ * catalog on startup, kept current by the product write path, swapped atomically on rebuild.
+ * Writes that land while a rebuild streams are replayed onto the new postings. Updates retire
+ * ordinals rather than clearing bits, so once enough are dead the index rebuilds itself.
+ */
+@Slf4j
+public abstract class CatalogIndex<P extends CatalogIndex.Postings> {
+
+    interface Postings {
+        void put(Product product);
+
+        void remove(String id);
+
+        long live();
+
+        long dead();
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final String name;
+    private final boolean enabled;
+    private final String[] fields;
+    private final Supplier<P> newPostings;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private P postings;
+    private volatile boolean ready;
+
+    protected CatalogIndex(MongoTemplate mongoTemplate, String name, boolean enabled,
+                           Supplier<P> newPostings, String... fields) {
+        this.mongoTemplate = mongoTemplate;
+        this.name = name;
+        this.enabled = enabled;
+        this.newPostings = newPostings;
+        this.fields = fields;
+        this.postings = newPostings.get();
+    }
+
+    /**
+     * Runs under the write lock right before fresh postings are swapped in.
+     */
+    protected void afterBuild(P postings) {
+    }
+
+    /**
+     * Runs under the write lock after every incremental write.
+     */
+    protected void afterWrite(P postings) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            Thread.ofVirtual().name(name + "-build").start(this::rebuild);
+        }
+    }
+
+    public void put(Product product) {
+        write(new PendingWrite(product.getId(), product));
+    }
+
+    public void remove(String id) {
+        write(new PendingWrite(id, null));
+    }
+
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            P fresh = newPostings.get();
+            Query query = new Query();
+            query.fields().include(fields);
+            try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+                products.forEach(fresh::put);
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (PendingWrite write; (write = pendingWrites.poll()) != null; ) {
+                    apply(fresh, write);
+                }
+                afterBuild(fresh);
+                postings = fresh;
+                building.set(false);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index {} built in {} ms: {} products",
+                    name, System.currentTimeMillis() - started, fresh.live());
+        } catch (RuntimeException e) {
+            pendingWrites.clear();
+            building.set(false);
+            log.error("Failed to build index {}. Error: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a query against the current postings under the read lock.
+     */
+    protected <T> T queryPostings(Function<P, T> query) {
+        if (!ready) {
+            throw new CatalogIndexNotReadyException();
+        }
+        return read(query);
+    }
+
+    /**
+     * Like {@link #queryPostings} but also before the first build, for metrics.
+     */
+    protected <T> T read(Function<P, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(PendingWrite write) {
+        if (!enabled) {
+            return;
+        }
+        boolean fragmented;
+        lock.writeLock().lock();
+        try {
+            apply(postings, write);
+            if (building.get()) {
+                pendingWrites.add(write);
+            }
+            afterWrite(postings);
+            fragmented = postings.dead() > Math.max(10_000, postings.live() / 4);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (fragmented && ready && !building.get()) {
+            Thread.ofVirtual().name(name + "-build").start(this::rebuild);
+        }
+    }
+
+    private void apply(P target, PendingWrite write) {
+        if (write.product() != null) {
+            target.put(write.product());
+        } else {
+            target.remove(write.id());
+        }
+    }
+
+    private record PendingWrite(String id, Product product) {
+    }
+}
@@ -0,0 +1,75 @@
+package ru.nexus.product.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.nexus.product.entity.Product;
+
+import java.util.List;
+
+/**
+ * Single entry point for keeping every in-memory catalog index in step with product writes.
+ * <p>
+ * While the change stream runs it is the only maintainer: it sees every write on every node, so
+ * the write path leaves the indexes alone instead of applying each change twice. Otherwise writes
+ * made inside a transaction reach the indexes once it commits, so a rolled back one never shows.
+ */
+@Component
+public class CatalogIndexes {
+
+    private final List<CatalogIndex<?>> indexes;
+    private final boolean streamMaintained;
+
+    public CatalogIndexes(List<CatalogIndex<?>> indexes,
+                          @Value("${product.cache.change-stream.enabled:false}") boolean streamMaintained) {
+        this.indexes = indexes;
+        this.streamMaintained = streamMaintained;
+    }
+
+    /**
+     * Write-path hook; a no-op while the change stream maintains the indexes.
+     */
+    public void written(Product product) {
+        if (!streamMaintained) {
+            afterCommit(() -> put(product));
+        }
+    }
+
+    /**
+     * Write-path hook; a no-op while the change stream maintains the indexes.
+     */
+    public void deleted(String id) {
+        if (!streamMaintained) {
+            afterCommit(() -> remove(id));
+        }
+    }
+
+    public void put(Product product) {
+        indexes.forEach(index -> index.put(product));
+    }
+
+    public void remove(String id) {
+        indexes.forEach(index -> index.remove(id));
+    }
+
+    /**
+     * Re-streams every index in the background; writes meanwhile are replayed onto the new postings.
+     */
+    public void rebuildAll() {
+        indexes.forEach(index -> Thread.ofVirtual().start(index::rebuild));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package ru.nexus.product.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import ru.nexus.product.exception.FacetNotIndexedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory faceted index over category and scalar attributes. Filters AND across attributes and
+ * OR within one, facet counts are bitmap intersections, so queries never touch Mongo.
+ */
+@Slf4j
+@Component
+public class FacetIndex extends CatalogIndex<FacetPostings> {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+    private static final int BUDGET_CHECK_INTERVAL = 1000;
+
+    private final long maxBytes;
+    private final MeterRegistry meterRegistry;
+    private final Timer queryTimer;
+    private int writesSinceBudgetCheck;
+
+    public FacetIndex(MongoTemplate mongoTemplate,
+                      MeterRegistry meterRegistry,
+                      @Value("${product.index.facets.enabled:true}") boolean enabled,
+                      @Value("${product.index.facets.max-bytes:268435456}") long maxBytes,
+                      @Value("${product.index.facets.max-values-per-attribute:1000}") int maxValuesPerAttribute) {
+        super(mongoTemplate, "facet-index", enabled,
+                () -> new FacetPostings(maxValuesPerAttribute), "id", "category", "attributes");
+        this.maxBytes = maxBytes;
+        this.meterRegistry = meterRegistry;
+        this.queryTimer = Timer.builder("product.index.facets.query")
+                .description("Facet index query latency")
+                .register(meterRegistry);
+    }
+
+    // Not in the constructor: the gauges keep a reference to the index, which must be complete by then
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("product.index.facets.bytes", this, index -> index.read(FacetPostings::sizeInBytes))
+                .description("Approximate heap used by the facet index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.index.facets.documents", this, index -> index.read(FacetPostings::live))
+                .description("Products in the facet index")
+                .register(meterRegistry);
+        Gauge.builder("product.index.facets.dropped_attributes", this, index -> index.read(p -> p.dropped.size()))
+                .description("Attributes left out of the index by the size budget")
+                .register(meterRegistry);
+    }
+
+    public FacetResult query(String category, Map<String, List<String>> filters,
+                             Collection<String> facetNames, int limit, int maxFacetValues) {
+        return queryTimer.record(() -> queryPostings(postings ->
+                query(postings, category, filters, facetNames, limit, maxFacetValues)));
+    }
+
+    @Override
+    protected void afterBuild(FacetPostings postings) {
+        enforceBudget(postings);
+        postings.optimize();
+    }
+
+    @Override
+    protected void afterWrite(FacetPostings postings) {
+        if (++writesSinceBudgetCheck >= BUDGET_CHECK_INTERVAL) {
+            writesSinceBudgetCheck = 0;
+            enforceBudget(postings);
+        }
+    }
+
+    private void enforceBudget(FacetPostings postings) {
+        List<String> dropped = postings.shrinkTo(maxBytes);
+        if (!dropped.isEmpty()) {
+            log.warn("Facet index over its {} byte budget, dropped attributes: {}", maxBytes, dropped);
+        }
+    }
+
+    private static FacetResult query(FacetPostings postings, String category, Map<String, List<String>> filters,
+                                     Collection<String> facetNames, int limit, int maxFacetValues) {
+        RoaringBitmap matches = postings.live.clone();
+        if (category != null) {
+            matches.and(postings.categories.getOrDefault(category, EMPTY));
+        }
+        for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+            Map<String, RoaringBitmap> values = valuesOf(postings, filter.getKey());
+            RoaringBitmap anyOf = new RoaringBitmap();
+            for (String value : filter.getValue()) {
+                anyOf.or(values.getOrDefault(value, EMPTY));
+            }
+            matches.and(anyOf);
+        }
+
+        List<String> productIds = new ArrayList<>(Math.min(limit, 128));
+        IntIterator ordinals = matches.getIntIterator();
+        while (ordinals.hasNext() && productIds.size() < limit) {
+            productIds.add(postings.ordinals.idOf(ordinals.next()));
+        }
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (String facetName : facetNames) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            valuesOf(postings, facetName).entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), (long) RoaringBitmap.andCardinality(matches, entry.getValue())))
+                    .filter(entry -> entry.getValue() > 0)
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .limit(maxFacetValues)
+                    .forEach(entry -> counts.put(entry.getKey(), entry.getValue()));
+            facets.put(facetName, counts);
+        }
+
+        return new FacetResult(matches.getLongCardinality(), productIds, facets);
+    }
+
+    private static Map<String, RoaringBitmap> valuesOf(FacetPostings postings, String attribute) {
+        if (postings.dropped.contains(attribute)) {
+            throw new FacetNotIndexedException(attribute);
+        }
+        return postings.attributes.getOrDefault(attribute, Map.of());
+    }
+}
@@ -0,0 +1,155 @@
+package ru.nexus.product.index;
+
+import org.bson.types.ObjectId;
+import org.roaringbitmap.RoaringBitmap;
+import ru.nexus.product.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One generation of the facet index: a bitmap of product ordinals per category and per
+ * attribute value. Updates never clear bits in value bitmaps; the old ordinal just leaves
+ * {@code live}, which every query intersects with, and a rebuild compacts the leftovers.
+ * Not thread-safe, {@link CatalogIndex} does the locking.
+ */
+final class FacetPostings implements CatalogIndex.Postings {
+
+    final OrdinalTable ordinals = new OrdinalTable();
+    final RoaringBitmap live = new RoaringBitmap();
+    final Map<String, RoaringBitmap> categories = new HashMap<>();
+    final Map<String, Map<String, RoaringBitmap>> attributes = new HashMap<>();
+    // Attributes with too many distinct values to be worth indexing
+    final Set<String> dropped = new HashSet<>();
+    private final int maxValuesPerAttribute;
+    private long dead;
+
+    FacetPostings(int maxValuesPerAttribute) {
+        this.maxValuesPerAttribute = maxValuesPerAttribute;
+    }
+
+    @Override
+    public void put(Product product) {
+        if (!ObjectId.isValid(product.getId())) {
+            return;
+        }
+        remove(product.getId());
+        int ordinal = ordinals.assign(new ObjectId(product.getId()));
+        live.add(ordinal);
+
+        if (product.getCategory() != null) {
+            categories.computeIfAbsent(product.getCategory(), category -> new RoaringBitmap()).add(ordinal);
+        }
+        if (product.getAttributes() == null) {
+            return;
+        }
+        product.getAttributes().forEach((name, value) -> {
+            if (dropped.contains(name)) {
+                return;
+            }
+            Map<String, RoaringBitmap> values = attributes.computeIfAbsent(name, attribute -> new HashMap<>());
+            for (String facetValue : facetValues(value)) {
+                RoaringBitmap bitmap = values.get(facetValue);
+                if (bitmap == null) {
+                    if (values.size() >= maxValuesPerAttribute) {
+                        drop(name);
+                        return;
+                    }
+                    bitmap = new RoaringBitmap();
+                    values.put(facetValue, bitmap);
+                }
+                bitmap.add(ordinal);
+            }
+        });
+    }
+
+    @Override
+    public void remove(String id) {
+        if (!ObjectId.isValid(id)) {
+            return;
+        }
+        int ordinal = ordinals.find(new ObjectId(id));
+        if (ordinal >= 0 && live.checkedRemove(ordinal)) {
+            dead++;
+        }
+    }
+
+    @Override
+    public long live() {
+        return live.getLongCardinality();
+    }
+
+    @Override
+    public long dead() {
+        return dead;
+    }
+
+    void drop(String attribute) {
+        attributes.remove(attribute);
+        dropped.add(attribute);
+    }
+
+    /**
+     * Drops the attributes with the most distinct values until the index fits, those are the
+     * least useful as facets and the most expensive to keep.
+     */
+    List<String> shrinkTo(long maxBytes) {
+        List<String> droppedNow = new ArrayList<>();
+        List<String> byCardinality = attributes.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Map<String, RoaringBitmap>> entry) -> entry.getValue().size()).reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+        for (String attribute : byCardinality) {
+            if (sizeInBytes() <= maxBytes) {
+                break;
+            }
+            drop(attribute);
+            droppedNow.add(attribute);
+        }
+        return droppedNow;
+    }
+
+    void optimize() {
+        live.runOptimize();
+        categories.values().forEach(RoaringBitmap::runOptimize);
+        attributes.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+    }
+
+    long sizeInBytes() {
+        long bytes = ordinals.sizeInBytes() + live.getLongSizeInBytes();
+        for (RoaringBitmap bitmap : categories.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        for (Map<String, RoaringBitmap> values : attributes.values()) {
+            for (RoaringBitmap bitmap : values.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Only scalars (and lists of scalars) are facets; nested objects are skipped.
+     */
+    private static List<String> facetValues(Object value) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return List.of(String.valueOf(value));
+        }
+        if (value instanceof Collection<?> collection) {
+            List<String> values = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                if (element instanceof String || element instanceof Number || element instanceof Boolean) {
+                    values.add(String.valueOf(element));
+                }
+            }
+            return values;
+        }
+        return List.of();
+    }
+}
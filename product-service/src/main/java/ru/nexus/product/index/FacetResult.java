@@ -0,0 +1,11 @@
+package ru.nexus.product.index;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matching product count, the first page of their ids and, per requested facet, value counts
+ * within the matches (most frequent first).
+ */
+public record FacetResult(long total, List<String> productIds, Map<String, Map<String, Long>> facets) {
+}
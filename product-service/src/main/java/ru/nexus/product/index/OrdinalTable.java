@@ -0,0 +1,118 @@
+package ru.nexus.product.index;
+
+import org.bson.types.ObjectId;
+
+import java.util.Arrays;
+
+/**
+ * Product id to bitmap ordinal mapping, packed into primitive arrays: 12 bytes per ObjectId plus
+ * an open-addressing int table, instead of a String and a boxed map entry per product.
+ * Ordinals are never reused; an id that is re-added gets a fresh one. Not thread-safe.
+ */
+final class OrdinalTable {
+
+    private static final int ID_BYTES = 12;
+
+    private byte[] ids = new byte[ID_BYTES * 1024];
+    private int size;
+    // ordinal + 1, 0 marks an empty slot
+    private int[] slots = new int[2048];
+    private int occupied;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Ordinal the id is currently mapped to, or -1.
+     */
+    int find(ObjectId id) {
+        byte[] key = id.toByteArray();
+        int mask = slots.length - 1;
+        for (int slot = hash(key, 0) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (matches(entry - 1, key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Gives the id a fresh ordinal, replacing its previous mapping if it had one.
+     */
+    int assign(ObjectId id) {
+        byte[] key = id.toByteArray();
+        ensureCapacity();
+        int ordinal = size++;
+        System.arraycopy(key, 0, ids, ordinal * ID_BYTES, ID_BYTES);
+
+        int mask = slots.length - 1;
+        for (int slot = hash(key, 0) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                slots[slot] = ordinal + 1;
+                occupied++;
+                return ordinal;
+            }
+            if (matches(entry - 1, key)) {
+                slots[slot] = ordinal + 1;
+                return ordinal;
+            }
+        }
+    }
+
+    String idOf(int ordinal) {
+        int offset = ordinal * ID_BYTES;
+        return new ObjectId(Arrays.copyOfRange(ids, offset, offset + ID_BYTES)).toHexString();
+    }
+
+    long sizeInBytes() {
+        return ids.length + 4L * slots.length;
+    }
+
+    private boolean matches(int ordinal, byte[] key) {
+        int offset = ordinal * ID_BYTES;
+        return Arrays.equals(ids, offset, offset + ID_BYTES, key, 0, ID_BYTES);
+    }
+
+    private void ensureCapacity() {
+        if ((size + 1) * ID_BYTES > ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        // Load factor 0.5 keeps probe chains short
+        if ((occupied + 1) * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int entry : old) {
+            if (entry == 0) {
+                continue;
+            }
+            int slot = hash(ids, (entry - 1) * ID_BYTES) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+    }
+
+    private static int hash(byte[] bytes, int offset) {
+        int h = 1;
+        for (int i = 0; i < ID_BYTES; i++) {
+            h = 31 * h + bytes[offset + i];
+        }
+        // ObjectIds share long prefixes (timestamp, machine), spread the low bits
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.nexus.product.index;
+
+/**
+ * Candidate from the trigram index; {@code gramScore} is the share of query trigrams it contains.
+ */
+public record SearchHit(String productId, double gramScore) {
+}
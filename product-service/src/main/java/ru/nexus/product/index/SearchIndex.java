@@ -0,0 +1,128 @@
+package ru.nexus.product.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Trigram index over product titles and SKU codes for autocomplete. A product matches when it
+ * contains enough of the query's trigrams: every typo can break at most three of them, so the
+ * threshold is lowered by three per allowed typo.
+ */
+@Component
+public class SearchIndex extends CatalogIndex<SearchPostings> {
+
+    // Bounds the work per query regardless of how common the query's grams are
+    private static final int MAX_CANDIDATES = 20_000;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer queryTimer;
+
+    public SearchIndex(MongoTemplate mongoTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${product.index.search.enabled:true}") boolean enabled) {
+        super(mongoTemplate, "search-index", enabled, SearchPostings::new, "id", "title", "skuCode");
+        this.meterRegistry = meterRegistry;
+        this.queryTimer = Timer.builder("product.index.search.query")
+                .description("Search index query latency")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("product.index.search.bytes", this, index -> index.read(SearchPostings::sizeInBytes))
+                .description("Approximate heap used by the search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.index.search.documents", this, index -> index.read(SearchPostings::live))
+                .description("Products in the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Best {@code limit} candidates by trigram overlap, newest first on ties.
+     */
+    public List<SearchHit> search(String text, int limit) {
+        List<String> tokens = SearchTokens.tokenize(text);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<String> queryGrams = new LinkedHashSet<>();
+        int typos = 0;
+        for (String token : tokens) {
+            queryGrams.addAll(SearchTokens.grams(token));
+            typos += SearchTokens.allowedTypos(token);
+        }
+        int required = Math.max(1, queryGrams.size() - 3 * typos);
+        return queryTimer.record(() -> queryPostings(postings -> search(postings, queryGrams, required, limit)));
+    }
+
+    @Override
+    protected void afterBuild(SearchPostings postings) {
+        postings.optimize();
+    }
+
+    private static List<SearchHit> search(SearchPostings postings, Set<String> queryGrams, int required, int limit) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            RoaringBitmap bitmap = postings.grams.get(gram);
+            if (bitmap != null) {
+                bitmaps.add(bitmap);
+            }
+        }
+        if (bitmaps.size() < required) {
+            return List.of();
+        }
+
+        // Anything with `required` matches shows up in at least one of the rarest
+        // (n - required + 1) lists, so those are the only ones worth a union
+        bitmaps.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap candidates = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps.subList(0, bitmaps.size() - required + 1)) {
+            candidates.or(bitmap);
+        }
+        candidates.and(postings.live);
+
+        // Min-heap on (matches, ordinal): higher ordinals are newer writes
+        PriorityQueue<long[]> best = new PriorityQueue<>(Comparator.<long[]>comparingLong(hit -> hit[0])
+                .thenComparingLong(hit -> hit[1]));
+        // Newest first, so when the cap cuts a common query short it is the oldest products that go unscored
+        IntIterator ordinals = candidates.getReverseIntIterator();
+        for (int scanned = 0; ordinals.hasNext() && scanned < MAX_CANDIDATES; scanned++) {
+            int ordinal = ordinals.next();
+            int matches = 0;
+            for (RoaringBitmap bitmap : bitmaps) {
+                if (bitmap.contains(ordinal)) {
+                    matches++;
+                }
+            }
+            if (matches >= required) {
+                best.add(new long[]{matches, ordinal});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long[] hit = best.poll();
+            hits.add(new SearchHit(postings.ordinals.idOf((int) hit[1]), (double) hit[0] / queryGrams.size()));
+        }
+        return hits.reversed();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.nexus.product.index;
+
+import org.bson.types.ObjectId;
+import org.roaringbitmap.RoaringBitmap;
+import ru.nexus.product.entity.Product;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One generation of the search index: a bitmap of product ordinals per trigram of the title and
+ * SKU tokens. Same retire-and-compact update model as {@link FacetPostings}.
+ */
+final class SearchPostings implements CatalogIndex.Postings {
+
+    final OrdinalTable ordinals = new OrdinalTable();
+    final RoaringBitmap live = new RoaringBitmap();
+    final Map<String, RoaringBitmap> grams = new HashMap<>();
+    private long dead;
+
+    @Override
+    public void put(Product product) {
+        if (!ObjectId.isValid(product.getId())) {
+            return;
+        }
+        remove(product.getId());
+        int ordinal = ordinals.assign(new ObjectId(product.getId()));
+        live.add(ordinal);
+
+        Set<String> tokens = new LinkedHashSet<>(SearchTokens.tokenize(product.getTitle()));
+        tokens.addAll(SearchTokens.skuTokens(product.getSkuCode()));
+        for (String token : tokens) {
+            for (String gram : SearchTokens.grams(token)) {
+                grams.computeIfAbsent(gram, key -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        if (!ObjectId.isValid(id)) {
+            return;
+        }
+        int ordinal = ordinals.find(new ObjectId(id));
+        if (ordinal >= 0 && live.checkedRemove(ordinal)) {
+            dead++;
+        }
+    }
+
+    @Override
+    public long live() {
+        return live.getLongCardinality();
+    }
+
+    @Override
+    public long dead() {
+        return dead;
+    }
+
+    void optimize() {
+        live.runOptimize();
+        grams.values().forEach(RoaringBitmap::runOptimize);
+    }
+
+    long sizeInBytes() {
+        long bytes = ordinals.sizeInBytes() + live.getLongSizeInBytes();
+        for (RoaringBitmap bitmap : grams.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.nexus.product.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizing, trigrams and bounded edit distance for title/SKU search.
+ */
+public final class SearchTokens {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    // Leading padding makes the first grams of a word match prefixes ("$$i", "$ip")
+    private static final String PADDING = "$$";
+
+    private SearchTokens() {
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT).replace('ё', 'е'), Normalizer.Form.NFKD);
+        normalized = COMBINING_MARKS.matcher(normalized).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * SKU tokens plus the SKU with separators removed, so "apl-ip15" and "aplip15" both find it.
+     */
+    public static List<String> skuTokens(String skuCode) {
+        List<String> tokens = new ArrayList<>(tokenize(skuCode));
+        if (tokens.size() > 1) {
+            tokens.add(String.join("", tokens));
+        }
+        return tokens;
+    }
+
+    /**
+     * No trailing padding: a half-typed last word still matches all of its grams.
+     */
+    public static Set<String> grams(String token) {
+        String padded = PADDING + token;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    public static int allowedTypos(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 7 ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance (adjacent swaps count as one edit), giving up as soon
+     * as it is certain to exceed {@code max}.
+     */
+    public static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= max;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.nexus.product.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import ru.nexus.product.entity.Product;
+
+import java.util.List;
+
+/**
+ * Rewrites prices stored as strings (the old BigDecimal mapping) to Decimal128, in _id order and
+ * in small batches so it never holds a long cursor or a big lock. Conversion happens server-side,
+ * documents never travel to the app. Idempotent: each run only touches what is still a string.
+ */
+@Slf4j
+@Component
+public class PriceDecimal128Migration implements ApplicationRunner {
+
+    private static final int BSON_STRING = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public PriceDecimal128Migration(MongoTemplate mongoTemplate,
+                                    @Value("${product.migration.price-decimal128.enabled:true}") boolean enabled,
+                                    @Value("${product.migration.price-decimal128.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        // Readers cope with both representations, so startup doesn't wait for this
+        Thread.ofVirtual().name("price-decimal128-migration").start(this::migrate);
+    }
+
+    void migrate() {
+        // A price that doesn't parse stays a string instead of failing the whole batch
+        AggregationUpdate toDecimal = AggregationUpdate.update()
+                .set("price").toValue(ConvertOperators.Convert.convertValueOf("price")
+                        .to("decimal")
+                        .onErrorReturnValueOf("price"));
+
+        long migrated = 0;
+        ObjectId lastId = null;
+        try {
+            while (true) {
+                Criteria criteria = Criteria.where("price").type(BSON_STRING);
+                if (lastId != null) {
+                    criteria.and("_id").gt(lastId);
+                }
+                Query batch = new Query(criteria).with(Sort.by("_id")).limit(batchSize);
+                batch.fields().include("_id");
+
+                List<ObjectId> ids = mongoTemplate.find(batch, Document.class, mongoTemplate.getCollectionName(Product.class))
+                        .stream()
+                        .map(document -> document.getObjectId("_id"))
+                        .toList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                migrated += mongoTemplate.updateMulti(
+                        new Query(Criteria.where("_id").in(ids).and("price").type(BSON_STRING)), toDecimal,
+                        mongoTemplate.getCollectionName(Product.class)).getModifiedCount();
+                lastId = ids.getLast();
+            }
+            log.info("Price migration to Decimal128 finished, {} documents converted", migrated);
+        } catch (RuntimeException e) {
+            // Safe to rerun: the next start picks up whatever is still a string
+            log.error("Price migration to Decimal128 stopped after {} documents. Error: {}", migrated, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.nexus.product.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Events to publish, stored next to the data they describe. Called inside the writing transaction,
+ * an event is stored if and only if the write commits; {@link OutboxRelay} delivers it later.
+ */
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+
+    private final MongoTemplate mongoTemplate;
+
+    public void enqueue(String exchange, String routingKey, Object payload) {
+        mongoTemplate.insert(message(exchange, routingKey, payload, Instant.now()));
+    }
+
+    public <T> void enqueueAll(String exchange, List<T> payloads, Function<T, String> routingKey) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        mongoTemplate.insertAll(payloads.stream()
+                .map(payload -> message(exchange, routingKey.apply(payload), payload, now))
+                .toList());
+    }
+
+    private static OutboxMessage message(String exchange, String routingKey, Object payload, Instant createdAt) {
+        return OutboxMessage.builder()
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .payload(payload)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.nexus.product.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Document(collection = "product_outbox")
+// Relay scan: unsent entries, oldest first
+@CompoundIndex(name = "pending", def = "{'sentAt': 1, 'createdAt': 1}")
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxMessage {
+    @Id
+    private String id;
+    private String exchange;
+    private String routingKey;
+    // Stored with its _class, so the relay publishes exactly what the caller would have
+    private Object payload;
+    private Instant createdAt;
+    // Lease held by the relay node publishing this entry; expired leases are picked up again
+    private String claimedBy;
+    private Instant claimedUntil;
+    private int attempts;
+    // Sent entries are kept for a week for troubleshooting, then expire
+    @Indexed(name = "sent_at_ttl", expireAfter = "7d")
+    private Instant sentAt;
+}
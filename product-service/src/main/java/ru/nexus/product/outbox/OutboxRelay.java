@@ -0,0 +1,174 @@
+package ru.nexus.product.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateConfigurer;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to RabbitMQ: claims a batch under a lease, publishes it over one channel,
+ * waits for the broker to confirm the whole batch, then marks it sent with one update.
+ * <p>
+ * Delivery is at-least-once. A node that dies after publishing but before marking leaves the
+ * batch to be re-sent when the lease runs out; the outbox id goes out as the message id so
+ * consumers can drop repeats. Messages are published mandatory: one the broker returns as
+ * unroutable fails its batch instead of being confirmed into nowhere. The relay publishes
+ * through a template of its own, so the shared one keeps its settings and its returns callback.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration confirmTimeout;
+    private final Duration failureBackoff;
+    private final Counter published;
+    private final Counter failures;
+    private final AtomicLong backlog;
+    private final AtomicLong lagSeconds;
+    private final Set<String> returned = ConcurrentHashMap.newKeySet();
+    private volatile Instant pausedUntil = Instant.EPOCH;
+
+    public OutboxRelay(MongoTemplate mongoTemplate,
+                       RabbitTemplateConfigurer rabbitTemplateConfigurer,
+                       ConnectionFactory connectionFactory,
+                       MeterRegistry meterRegistry,
+                       @Value("${product.outbox.batch-size:200}") int batchSize,
+                       @Value("${product.outbox.lease:30s}") Duration lease,
+                       @Value("${product.outbox.confirm-timeout:5s}") Duration confirmTimeout,
+                       @Value("${product.outbox.failure-backoff:5s}") Duration failureBackoff) {
+        this.mongoTemplate = mongoTemplate;
+        this.rabbitTemplate = new RabbitTemplate();
+        // Same converter, retry and timeouts as the auto-configured template
+        rabbitTemplateConfigurer.configure(rabbitTemplate, connectionFactory);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.confirmTimeout = confirmTimeout;
+        this.failureBackoff = failureBackoff;
+        this.published = meterRegistry.counter("product.outbox.published");
+        this.failures = meterRegistry.counter("product.outbox.publish.failures");
+        this.backlog = meterRegistry.gauge("product.outbox.backlog", new AtomicLong());
+        this.lagSeconds = meterRegistry.gauge("product.outbox.lag.seconds", new AtomicLong());
+        // The broker sends a return before the confirm, so it is in by the time the wait ends
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(message -> {
+            log.warn("Outbox message {} returned by the broker: {} {} -> {}",
+                    message.getMessage().getMessageProperties().getMessageId(), message.getReplyText(),
+                    message.getExchange(), message.getRoutingKey());
+            returned.add(message.getMessage().getMessageProperties().getMessageId());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${product.outbox.poll-interval:200ms}")
+    public void relay() {
+        if (Instant.now().isBefore(pausedUntil)) {
+            return;
+        }
+        List<OutboxMessage> batch;
+        // Keep draining while batches come back full, then wait for the next tick
+        do {
+            batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!publish(batch)) {
+                pausedUntil = Instant.now().plus(failureBackoff);
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${product.outbox.metrics-interval:10s}")
+    public void refreshMetrics() {
+        Query pending = new Query(Criteria.where("sentAt").is(null));
+        backlog.set(mongoTemplate.count(pending, OutboxMessage.class));
+        OutboxMessage oldest = mongoTemplate.findOne(
+                new Query(Criteria.where("sentAt").is(null)).with(Sort.by("createdAt")), OutboxMessage.class);
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest.getCreatedAt(), Instant.now()).toSeconds());
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        Instant now = Instant.now();
+        Criteria claimable = Criteria.where("sentAt").is(null)
+                .orOperator(Criteria.where("claimedUntil").is(null), Criteria.where("claimedUntil").lt(now));
+
+        Query candidates = new Query(claimable).with(Sort.by("createdAt")).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, OutboxMessage.class).stream()
+                .map(OutboxMessage::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Another node may win some of these between the find and the update; the lease stamp tells ours
+        Instant claimedUntil = now.plus(lease).truncatedTo(ChronoUnit.MILLIS);
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids).andOperator(claimable)),
+                new Update().set("claimedBy", nodeId).set("claimedUntil", claimedUntil).inc("attempts", 1),
+                OutboxMessage.class);
+        return mongoTemplate.find(new Query(Criteria.where("_id").in(ids)
+                        .and("claimedBy").is(nodeId)
+                        .and("claimedUntil").is(claimedUntil))
+                .with(Sort.by("createdAt")), OutboxMessage.class);
+    }
+
+    private boolean publish(List<OutboxMessage> batch) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxMessage message : batch) {
+                    // Id set before conversion, so the event frame's id is derived from it rather than random
+                    MessageProperties properties = new MessageProperties();
+                    properties.setMessageId(message.getId());
+                    operations.send(message.getExchange(), message.getRoutingKey(),
+                            rabbitTemplate.getMessageConverter().toMessage(message.getPayload(), properties));
+                }
+                // One wait for the whole batch instead of a round trip per message
+                operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+            long unroutable = batch.stream().filter(message -> returned.contains(message.getId())).count();
+            if (unroutable > 0) {
+                throw new AmqpException(unroutable + " messages were returned as unroutable");
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.error("Failed to publish {} outbox messages, retrying after {}. Error: {}",
+                    batch.size(), failureBackoff, e.getMessage());
+            return false;
+        } finally {
+            batch.forEach(message -> returned.remove(message.getId()));
+        }
+
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(batch.stream().map(OutboxMessage::getId).toList())),
+                new Update().set("sentAt", Instant.now()).unset("claimedBy").unset("claimedUntil"),
+                OutboxMessage.class);
+        published.increment(batch.size());
+        return true;
+    }
+}
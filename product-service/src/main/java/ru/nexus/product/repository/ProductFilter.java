@@ -0,0 +1,9 @@
+package ru.nexus.product.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Listing filter; null fields don't constrain. Price bounds are inclusive.
+ */
+public record ProductFilter(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+}
@@ -4,6 +4,11 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import ru.nexus.product.entity.Product;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
+
+    List<Product> findAllBySkuCodeIn(Collection<String> skuCodes);
 }
@@ -0,0 +1,29 @@
+package ru.nexus.product.repository;
+
+import ru.nexus.product.entity.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Seeks past (sort key, id) of the last row instead of skipping, so every page costs the same
+     * index range scan. Pass a null id for the first page; a null value with an id seeks past a row
+     * that has no sort key.
+     */
+    List<Product> findPageAfter(ProductFilter filter, ProductSort sort, Object afterValue, String afterId, int limit);
+
+    long countMatching(ProductFilter filter);
+
+    /**
+     * Sets the given fields and bumps the version in one findAndModify. With an expected version
+     * the update only applies if it still matches. Returns the new document, or null if nothing matched.
+     */
+    Product patch(String id, Long expectedVersion, Map<String, Object> fields);
+
+    /**
+     * Single findAndRemove; returns the deleted document, or null if there was none.
+     */
+    Product removeById(String id);
+}
@@ -0,0 +1,111 @@
+package ru.nexus.product.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import ru.nexus.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Product> findPageAfter(ProductFilter filter, ProductSort sort, Object afterValue, String afterId, int limit) {
+        List<Criteria> criteria = filterCriteria(filter);
+        if (sort != ProductSort.NEWEST) {
+            // Unpriced products can't be positioned by price
+            criteria.add(Criteria.where("price").ne(null));
+        }
+        if (afterId != null) {
+            criteria.add(seekPast(sort, afterValue != null ? toMongo(afterValue) : null, afterId));
+        }
+
+        Query query = toQuery(criteria);
+        query.with(Sort.by(sort.direction(), sort.field(), "id")).limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public long countMatching(ProductFilter filter) {
+        return mongoTemplate.count(toQuery(filterCriteria(filter)), Product.class);
+    }
+
+    @Override
+    public Product patch(String id, Long expectedVersion, Map<String, Object> fields) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+
+        Update update = new Update();
+        fields.forEach(update::set);
+        // findAndModify bypasses auditing and versioning, so both are done by hand
+        update.inc("version", 1).set("updatedAt", Instant.now());
+
+        return mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    @Override
+    public Product removeById(String id) {
+        return mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)), Product.class);
+    }
+
+    /**
+     * Rows after (value, id) in sort order. Missing and null keys sort below every value: last when
+     * descending, first when ascending.
+     */
+    private static Criteria seekPast(ProductSort sort, Object value, String afterId) {
+        String field = sort.field();
+        boolean ascending = sort.direction().isAscending();
+        Criteria sameKey = ascending
+                ? Criteria.where(field).is(value).and("id").gt(afterId)
+                : Criteria.where(field).is(value).and("id").lt(afterId);
+        if (value == null) {
+            return ascending ? new Criteria().orOperator(sameKey, Criteria.where(field).ne(null)) : sameKey;
+        }
+        return ascending
+                ? new Criteria().orOperator(Criteria.where(field).gt(value), sameKey)
+                : new Criteria().orOperator(Criteria.where(field).lt(value), sameKey, Criteria.where(field).is(null));
+    }
+
+    private static List<Criteria> filterCriteria(ProductFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.category() != null) {
+            criteria.add(Criteria.where("category").is(filter.category()));
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.minPrice() != null) {
+                price.gte(new Decimal128(filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                price.lte(new Decimal128(filter.maxPrice()));
+            }
+            criteria.add(price);
+        }
+        return criteria;
+    }
+
+    private static Query toQuery(List<Criteria> criteria) {
+        return criteria.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(criteria));
+    }
+
+    private static Object toMongo(Object value) {
+        return value instanceof BigDecimal price ? new Decimal128(price) : value;
+    }
+}
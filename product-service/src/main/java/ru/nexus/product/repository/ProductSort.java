@@ -0,0 +1,28 @@
+package ru.nexus.product.repository;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Orders the cursor listing supports; each one has a matching (…, field, _id) index on Product.
+ */
+public enum ProductSort {
+    NEWEST("createdAt", Sort.Direction.DESC),
+    PRICE_ASC("price", Sort.Direction.ASC),
+    PRICE_DESC("price", Sort.Direction.DESC);
+
+    private final String field;
+    private final Sort.Direction direction;
+
+    ProductSort(String field, Sort.Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public Sort.Direction direction() {
+        return direction;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.nexus.product.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.nexus.product.dto.FacetSearchResponse;
+import ru.nexus.product.dto.ProductBatchRequest;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.index.FacetIndex;
+import ru.nexus.product.index.FacetResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FacetSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_FACET_VALUES = 50;
+
+    private final FacetIndex facetIndex;
+    private final ProductBatchService productBatchService;
+
+    public FacetSearchResponse search(String category, Map<String, List<String>> filters,
+                                      Collection<String> facetNames, int size) {
+        int limit = Math.clamp(size, 0, MAX_PAGE_SIZE);
+        FacetResult result = facetIndex.query(category, filters, facetNames, limit, MAX_FACET_VALUES);
+        log.info("Facet search category: {}, filters: {} matched {} products", category, filters, result.total());
+
+        // The index only knows ids; the page itself comes through the cache like any batch lookup
+        List<ProductResponse> products = result.productIds().isEmpty()
+                ? List.of()
+                : productBatchService.getProducts(ProductBatchRequest.builder()
+                        .ids(result.productIds())
+                        .build()).getProducts();
+
+        return FacetSearchResponse.builder()
+                .total(result.total())
+                .products(products)
+                .facets(result.facets())
+                .build();
+    }
+}
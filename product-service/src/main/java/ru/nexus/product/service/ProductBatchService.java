@@ -0,0 +1,132 @@
+package ru.nexus.product.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.nexus.product.cache.TwoTierCache;
+import ru.nexus.product.cache.TwoTierCacheManager;
+import ru.nexus.product.dto.ProductBatchRequest;
+import ru.nexus.product.dto.ProductBatchResponse;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.mapper.ProductMapper;
+import ru.nexus.product.repository.ProductRepository;
+import ru.nexus.product.warmup.AccessFrequencySketch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Batch lookups for carts and order flows: one MGET for cache hits, one $in query for the misses
+ * and one pipelined write to put them back, however many products are asked for.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBatchService {
+
+    public static final String PRODUCTS_CACHE = "products";
+    // skuCode -> product id, so SKU lookups can reuse the products cache
+    public static final String SKU_CACHE = "product-skus";
+
+    private final ProductRepository repository;
+    private final ProductMapper mapper;
+    private final TwoTierCacheManager cacheManager;
+    private final AccessFrequencySketch accessFrequencySketch;
+
+    public ProductBatchResponse getProducts(ProductBatchRequest request) {
+        Set<String> ids = distinct(request.getIds());
+        Set<String> skuCodes = distinct(request.getSkuCodes());
+        log.info("Fetching batch of {} ids and {} SKU codes", ids.size(), skuCodes.size());
+
+        Map<String, ProductResponse> byId = findByIds(ids);
+        Map<String, ProductResponse> bySku = findBySkuCodes(skuCodes);
+
+        // Same product may be asked for by id and by SKU, return it once
+        Map<String, ProductResponse> products = new LinkedHashMap<>(byId);
+        bySku.values().forEach(product -> products.putIfAbsent(product.getId(), product));
+        products.keySet().forEach(accessFrequencySketch::record);
+
+        return ProductBatchResponse.builder()
+                .products(new ArrayList<>(products.values()))
+                .missingIds(ids.stream().filter(id -> !byId.containsKey(id)).toList())
+                .missingSkuCodes(skuCodes.stream().filter(sku -> !bySku.containsKey(sku)).toList())
+                .build();
+    }
+
+    private Map<String, ProductResponse> findByIds(Set<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        TwoTierCache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        Map<Object, Object> cached = cache.getAll(ids);
+
+        List<String> misses = ids.stream().filter(id -> !cached.containsKey(id)).toList();
+        Map<String, ProductResponse> loaded = new LinkedHashMap<>();
+        if (!misses.isEmpty()) {
+            log.info("Batch cache miss for {} of {} ids", misses.size(), ids.size());
+            repository.findAllById(misses)
+                    .forEach(product -> loaded.put(product.getId(), mapper.toResponse(product)));
+            cache.putAll(loaded);
+        }
+
+        Map<String, ProductResponse> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            Object product = cached.containsKey(id) ? cached.get(id) : loaded.get(id);
+            if (product != null) {
+                result.put(id, (ProductResponse) product);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, ProductResponse> findBySkuCodes(Set<String> skuCodes) {
+        if (skuCodes.isEmpty()) {
+            return Map.of();
+        }
+        TwoTierCache skuCache = cacheManager.getCache(SKU_CACHE);
+        Map<Object, Object> mappedIds = skuCache.getAll(skuCodes);
+
+        Map<String, ProductResponse> result = new LinkedHashMap<>();
+        Map<String, ProductResponse> mapped = findByIds(distinct(mappedIds.values().stream()
+                .map(String.class::cast)
+                .toList()));
+        for (String sku : skuCodes) {
+            Object id = mappedIds.get(sku);
+            ProductResponse product = id != null ? mapped.get((String) id) : null;
+            // A mapping can outlive a SKU change or a delete; such entries are treated as misses
+            if (product != null && sku.equals(product.getSkuCode())) {
+                result.put(sku, product);
+            }
+        }
+
+        List<String> misses = skuCodes.stream().filter(sku -> !result.containsKey(sku)).toList();
+        if (!misses.isEmpty()) {
+            log.info("Batch cache miss for {} of {} SKU codes", misses.size(), skuCodes.size());
+            Map<String, ProductResponse> loaded = new LinkedHashMap<>();
+            Map<String, String> loadedIds = new LinkedHashMap<>();
+            for (Product product : repository.findAllBySkuCodeIn(misses)) {
+                ProductResponse response = mapper.toResponse(product);
+                loaded.put(product.getId(), response);
+                loadedIds.put(product.getSkuCode(), product.getId());
+                result.put(product.getSkuCode(), response);
+            }
+            cacheManager.getCache(PRODUCTS_CACHE).putAll(loaded);
+            skuCache.putAll(loadedIds);
+        }
+        return result;
+    }
+
+    private static Set<String> distinct(List<String> values) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(distinct::add);
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.nexus.product.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.nexus.product.cache.CacheRefresher;
+import ru.nexus.product.mapper.ProductMapper;
+import ru.nexus.product.repository.ProductRepository;
+
+/**
+ * Early refresh for the products cache: the same read {@link ProductService#getProductById} does on a miss.
+ */
+@Component
+@RequiredArgsConstructor
+class ProductCacheRefresher implements CacheRefresher {
+
+    private final ProductRepository repository;
+    private final ProductMapper mapper;
+
+    @Override
+    public String cacheName() {
+        return "products";
+    }
+
+    @Override
+    public Object load(Object key) {
+        return repository.findById((String) key).map(mapper::toResponse).orElse(null);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.nexus.product.service;
+
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.exception.InvalidCursorException;
+import ru.nexus.product.repository.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last row handed out: the sort it belongs to, that row's sort key and id.
+ * Encoded as URL-safe Base64 so clients treat it as opaque.
+ */
+record ProductCursor(ProductSort sort, String key, String id) {
+
+    private static final String SEPARATOR = ":";
+    // Products written before auditing have no createdAt; they come last under NEWEST
+    private static final String NO_CREATED_AT = "none";
+
+    static ProductCursor after(Product product, ProductSort sort) {
+        String key;
+        if (sort == ProductSort.NEWEST) {
+            key = product.getCreatedAt() != null ? String.valueOf(product.getCreatedAt().toEpochMilli()) : NO_CREATED_AT;
+        } else {
+            key = product.getPrice().toPlainString();
+        }
+        return new ProductCursor(sort, key, product.getId());
+    }
+
+    /**
+     * The sort key to seek past, null for a product without one.
+     */
+    Object sortValue() {
+        if (sort != ProductSort.NEWEST) {
+            return new BigDecimal(key);
+        }
+        return NO_CREATED_AT.equals(key) ? null : Instant.ofEpochMilli(Long.parseLong(key));
+    }
+
+    String encode() {
+        String raw = sort.name() + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProductCursor decode(String cursor, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 3 || parts[1].isEmpty() || parts[2].isEmpty()
+                    || ProductSort.valueOf(parts[0]) != expectedSort) {
+                throw new InvalidCursorException(cursor);
+            }
+            ProductCursor decoded = new ProductCursor(expectedSort, parts[1], parts[2]);
+            // Fails here rather than deep inside the query
+            decoded.sortValue();
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.nexus.product.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.exception.UnknownExportFieldException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full or incremental catalog export as NDJSON, written straight from a Mongo cursor. The cursor
+ * fetches its next batch only once the previous one has been written, and writes block on a slow
+ * client, so heap holds one batch whatever the catalog size.
+ * <p>
+ * Documents come in (updatedAt, _id) order; one updated mid-export moves behind the cursor and is
+ * written again, so nothing is missed and consumers just upsert.
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    public static final Set<String> EXPORTABLE_FIELDS = Set.of(
+            "id", "skuCode", "title", "price", "category", "attributes", "version", "createdAt", "updatedAt");
+
+    private static final byte[] NEWLINE = {'\n'};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+    private final int cursorBatchSize;
+    private final Duration watermarkLag;
+
+    public ProductExportService(MongoTemplate mongoTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${product.export.cursor-batch-size:500}") int cursorBatchSize,
+                                @Value("${product.export.watermark-lag:5s}") Duration watermarkLag) {
+        this.mongoTemplate = mongoTemplate;
+        this.watermarkLag = watermarkLag;
+        // Projected-out fields are left out of the line instead of written as null
+        this.writer = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writerFor(Product.class)
+                // The target stream outlives each line and is flushed per buffer, not per line
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    /**
+     * Checked before the response is committed, so a bad field is still a 400.
+     */
+    public void validateFields(List<String> fields) {
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            if (!EXPORTABLE_FIELDS.contains(field)) {
+                throw new UnknownExportFieldException(field, EXPORTABLE_FIELDS);
+            }
+        }
+    }
+
+    /**
+     * What the client passes as {@code since} next time. Taken before the export starts and pulled back
+     * a little, since updatedAt is stamped before a write commits; the overlap only means a few repeats.
+     */
+    public Instant nextWatermark() {
+        return Instant.now().minus(watermarkLag);
+    }
+
+    public long export(OutputStream target, Instant updatedSince, List<String> fields, boolean gzip) throws IOException {
+        Query query = new Query();
+        if (updatedSince != null) {
+            query.addCriteria(Criteria.where("updatedAt").gte(updatedSince));
+        }
+        if (fields != null && !fields.isEmpty()) {
+            fields.forEach(field -> query.fields().include(field));
+        }
+        query.with(Sort.by("updatedAt", "_id")).cursorBatchSize(cursorBatchSize);
+
+        long exported = 0;
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(target, BUFFER_SIZE) : null;
+        OutputStream out = new BufferedOutputStream(compressed != null ? compressed : target, BUFFER_SIZE);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(out, iterator.next());
+                out.write(NEWLINE);
+                exported++;
+            }
+        }
+        out.flush();
+        if (compressed != null) {
+            // Writes the gzip trailer; the container closes the response stream itself
+            compressed.finish();
+        }
+        return exported;
+    }
+}
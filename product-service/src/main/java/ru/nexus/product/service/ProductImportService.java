@@ -0,0 +1,211 @@
+package ru.nexus.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import ru.nexus.common.event.ProductCreatedEvent;
+import ru.nexus.product.cache.CacheGenerations;
+import ru.nexus.product.config.RabbitMQConfig;
+import ru.nexus.product.dto.ProductImportResponse;
+import ru.nexus.product.dto.ProductRequest;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.index.CatalogIndexes;
+import ru.nexus.product.outbox.Outbox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Supplier feed import: reads NDJSON one line at a time and upserts by SKU in unordered bulk writes,
+ * so memory holds one chunk and one capped error list however long the feed is. Created events
+ * go to the outbox with one insert per chunk.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Outbox outbox;
+    private final CacheGenerations cacheGenerations;
+    private final CatalogIndexes catalogIndexes;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(MongoTemplate mongoTemplate,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                Outbox outbox,
+                                CacheGenerations cacheGenerations,
+                                CatalogIndexes catalogIndexes,
+                                @Value("${product.import.chunk-size:1000}") int chunkSize,
+                                @Value("${product.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.outbox = outbox;
+        this.cacheGenerations = cacheGenerations;
+        this.catalogIndexes = catalogIndexes;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ProductImportResponse importProducts(InputStream body) throws IOException {
+        ImportReport report = new ImportReport();
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String text;
+            long lineNumber = 0;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.received++;
+                ImportLine line = parse(lineNumber, text, report);
+                if (line == null) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    write(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, report);
+        }
+
+        if (report.inserted + report.updated > 0) {
+            // Cheaper than evicting each upserted SKU; indexes re-stream in the background
+            cacheGenerations.bumpCache(ProductBatchService.PRODUCTS_CACHE);
+            catalogIndexes.rebuildAll();
+        }
+        log.info("Product import finished: {} received, {} inserted, {} updated, {} failed",
+                report.received, report.inserted, report.updated, report.failed);
+        return report.toResponse();
+    }
+
+    private ImportLine parse(long lineNumber, String text, ImportReport report) {
+        ProductRequest request;
+        try {
+            request = objectMapper.readValue(text, ProductRequest.class);
+        } catch (JsonProcessingException e) {
+            report.fail(lineNumber, null, Map.of("line", "Malformed JSON: " + e.getOriginalMessage()));
+            return null;
+        }
+
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (ConstraintViolation<ProductRequest> violation : validator.validate(request)) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            report.fail(lineNumber, request.getSkuCode(), errors);
+            return null;
+        }
+        return new ImportLine(lineNumber, request);
+    }
+
+    private void write(List<ImportLine> chunk, ImportReport report) {
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (ImportLine line : chunk) {
+            ProductRequest request = line.request();
+            bulk.upsert(new Query(Criteria.where("skuCode").is(request.getSkuCode())), new Update()
+                    .set("title", request.getTitle())
+                    .set("price", request.getPrice())
+                    .set("category", request.getCategory())
+                    .set("attributes", request.getAttributes())
+                    .set("updatedAt", now)
+                    .setOnInsert("createdAt", now)
+                    // Concurrent editors holding the old version get a conflict, as after any write
+                    .inc("version", 1));
+        }
+
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything except the reported operations was applied
+            for (BulkWriteError error : e.getErrors()) {
+                ImportLine line = chunk.get(error.getIndex());
+                report.fail(line.number(), line.request().getSkuCode(), Map.of("write", error.getMessage()));
+            }
+            result = e.getResult();
+        }
+
+        report.inserted += result.getUpserts().size();
+        report.updated += result.getMatchedCount();
+        enqueueCreated(chunk, result.getUpserts());
+    }
+
+    private void enqueueCreated(List<ImportLine> chunk, List<BulkWriteUpsert> upserts) {
+        // One insert per chunk. Not atomic with the bulk write above: a crash in between loses these events
+        outbox.enqueueAll(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE,
+                upserts.stream()
+                        .map(upsert -> chunk.get(upsert.getIndex()).request())
+                        .map(request -> ProductCreatedEvent.builder()
+                                .skuCode(request.getSkuCode())
+                                .title(request.getTitle())
+                                .build())
+                        .toList(),
+                event -> RabbitMQConfig.partitionKey(event.getSkuCode()));
+    }
+
+    private record ImportLine(long number, ProductRequest request) {
+    }
+
+    private class ImportReport {
+        private long received;
+        private long inserted;
+        private long updated;
+        private long failed;
+        private final List<ProductImportResponse.LineError> errors = new ArrayList<>();
+
+        private void fail(long line, String skuCode, Map<String, String> lineErrors) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(ProductImportResponse.LineError.builder()
+                        .line(line)
+                        .skuCode(skuCode)
+                        .errors(lineErrors)
+                        .build());
+            }
+        }
+
+        private ProductImportResponse toResponse() {
+            return ProductImportResponse.builder()
+                    .received(received)
+                    .inserted(inserted)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
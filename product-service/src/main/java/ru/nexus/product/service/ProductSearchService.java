@@ -0,0 +1,90 @@
+package ru.nexus.product.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.nexus.product.dto.ProductBatchRequest;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.index.SearchHit;
+import ru.nexus.product.index.SearchIndex;
+import ru.nexus.product.index.SearchTokens;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Title/SKU search: the trigram index narrows the catalog to a few candidates, which are then
+ * fetched through the cache and re-ranked on how well their words match the query's.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private static final int MAX_RESULTS = 50;
+    // Candidates pulled from the index per result returned, headroom for re-ranking
+    private static final int CANDIDATES_PER_RESULT = 4;
+
+    private final SearchIndex searchIndex;
+    private final ProductBatchService productBatchService;
+
+    public List<ProductResponse> search(String query, int size) {
+        int limit = Math.clamp(size, 1, MAX_RESULTS);
+        List<SearchHit> hits = searchIndex.search(query, limit * CANDIDATES_PER_RESULT);
+        log.info("Search for: {} found {} candidates", query, hits.size());
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Double> gramScores = hits.stream()
+                .collect(Collectors.toMap(SearchHit::productId, SearchHit::gramScore));
+        List<ProductResponse> candidates = productBatchService.getProducts(ProductBatchRequest.builder()
+                        .ids(hits.stream().map(SearchHit::productId).toList())
+                        .build())
+                .getProducts();
+
+        List<String> queryTokens = SearchTokens.tokenize(query);
+        Map<String, Double> scores = candidates.stream()
+                .collect(Collectors.toMap(ProductResponse::getId,
+                        product -> textScore(queryTokens, product) + gramScores.getOrDefault(product.getId(), 0.0)));
+
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble((ProductResponse product) -> scores.get(product.getId())).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Per query word, the best match among the product's words: exact 4, prefix 3, within the
+     * typo allowance 2, a prefix within the typo allowance 1.
+     */
+    private static double textScore(List<String> queryTokens, ProductResponse product) {
+        List<String> productTokens = new ArrayList<>(SearchTokens.tokenize(product.getTitle()));
+        productTokens.addAll(SearchTokens.skuTokens(product.getSkuCode()));
+
+        double score = 0;
+        for (String queryToken : queryTokens) {
+            int typos = SearchTokens.allowedTypos(queryToken);
+            int best = 0;
+            for (String productToken : productTokens) {
+                if (productToken.equals(queryToken)) {
+                    best = 4;
+                    break;
+                }
+                if (productToken.startsWith(queryToken)) {
+                    best = Math.max(best, 3);
+                } else if (typos > 0 && SearchTokens.withinDistance(queryToken, productToken, typos)) {
+                    best = Math.max(best, 2);
+                } else if (typos > 0 && productToken.length() > queryToken.length()
+                        && SearchTokens.withinDistance(queryToken, productToken.substring(0, queryToken.length()), typos)) {
+                    best = Math.max(best, 1);
+                }
+            }
+            score += best;
+        }
+        return score;
+    }
+}
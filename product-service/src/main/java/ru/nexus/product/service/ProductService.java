@@ -5,23 +5,40 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.nexus.common.event.ProductCreatedEvent;
+import ru.nexus.product.config.RabbitMQConfig;
+import ru.nexus.product.dto.CursorPage;
+import ru.nexus.product.dto.ProductPatchRequest;
 import ru.nexus.product.dto.ProductRequest;
 import ru.nexus.product.dto.ProductResponse;
 import ru.nexus.product.entity.Product;
 import ru.nexus.product.exception.ProductNotFoundException;
+import ru.nexus.product.index.CatalogIndexes;
 import ru.nexus.product.mapper.ProductMapper;
+import ru.nexus.product.outbox.Outbox;
+import ru.nexus.product.repository.ProductFilter;
 import ru.nexus.product.repository.ProductRepository;
+import ru.nexus.product.repository.ProductSort;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository repository;
     private final ProductMapper mapper;
-    private final org.springframework.amqp.rabbit.core.RabbitTemplate rabbitTemplate;
+    private final Outbox outbox;
+    private final CatalogIndexes catalogIndexes;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
         log.info("Fetching all products with pagination: {}", pageable);
@@ -29,7 +46,30 @@ public class ProductService {
                 .map(mapper::toResponse);
     }
 
-    @Cacheable(value = "products", key="#id")
+    public CursorPage<ProductResponse> getProductsAfter(String cursor, ProductFilter filter, ProductSort sort,
+                                                       int size, boolean withTotal) {
+        int limit = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+        ProductCursor after = cursor != null ? ProductCursor.decode(cursor, sort) : null;
+        log.info("Fetching products after cursor: {}, filter: {}, sort: {}, size: {}", after, filter, sort, limit);
+
+        // One extra row tells us whether there is a next page without counting
+        List<Product> products = repository.findPageAfter(filter, sort,
+                after != null ? after.sortValue() : null,
+                after != null ? after.id() : null,
+                limit + 1);
+
+        String nextCursor = null;
+        if (products.size() > limit) {
+            products = products.subList(0, limit);
+            nextCursor = ProductCursor.after(products.getLast(), sort).encode();
+        }
+
+        Long total = withTotal ? repository.countMatching(filter) : null;
+
+        return new CursorPage<>(products.stream().map(mapper::toResponse).toList(), nextCursor, total);
+    }
+
+    @Cacheable(value = "products", key="#id", sync = true)
     public ProductResponse getProductById(String id) {
         log.info("Fetching product by ID: {} (Cache miss if you see this)", id);
         Product product = repository.findById(id)
@@ -37,33 +77,25 @@ public class ProductService {
         return mapper.toResponse(product);
     }
 
+    @Transactional
     public ProductResponse createProduct(ProductRequest productRequest) {
         log.info("Creating new product with skuCode: {}", productRequest.getSkuCode());
         Product product = mapper.toEntity(productRequest);
         Product savedProduct = repository.save(product);
         log.info("Product saved to DB with ID: {}", savedProduct.getId());
+        catalogIndexes.written(savedProduct);
 
-        // Отправка события в RabbitMQ
-        ru.nexus.common.event.ProductCreatedEvent event = ru.nexus.common.event.ProductCreatedEvent.builder()
-                .skuCode(savedProduct.getSkuCode())
-                .title(savedProduct.getTitle())
-                .build();
-
-        try {
-            log.info("Publishing product created event to RabbitMQ for SKU: {}", savedProduct.getSkuCode());
-            rabbitTemplate.convertAndSend(
-                    ru.nexus.product.config.RabbitMQConfig.PRODUCT_EXCHANGE,
-                    ru.nexus.product.config.RabbitMQConfig.PRODUCT_CREATED_ROUTING_KEY,
-                    event
-            );
-        } catch (Exception e) {
-            log.error("Failed to publish product created event for SKU: {}. Error: {}", savedProduct.getSkuCode(), e.getMessage());
-        }
+        // Событие сохраняется в outbox в той же транзакции, в RabbitMQ его отправит OutboxRelay
+        outbox.enqueue(RabbitMQConfig.PRODUCT_EVENTS_EXCHANGE, RabbitMQConfig.partitionKey(savedProduct.getSkuCode()),
+                ProductCreatedEvent.builder()
+                        .skuCode(savedProduct.getSkuCode())
+                        .title(savedProduct.getTitle())
+                        .build());
 
         return mapper.toResponse(savedProduct);
     }
 
-    @CachePut(value = "products", key="#id")
+    @CachePut(value = "products", key="#id", condition = "@cacheWritePolicy.writeThrough()")
     public ProductResponse updateProduct(String id, ProductRequest productRequest) {
         log.info("Updating product with ID: {}", id);
         Product product = repository.findById(id)
@@ -72,18 +104,56 @@ public class ProductService {
         mapper.updateEntity(productRequest, product);
 
         Product updatedProduct = repository.save(product);
+        catalogIndexes.written(updatedProduct);
         log.info("Product updated successfully: {}", id);
         return mapper.toResponse(updatedProduct);
     }
 
-    @CacheEvict(value = "products", key="#id")
+    /**
+     * One findAndModify instead of read-modify-save; the returned document goes straight into the cache.
+     */
+    @CachePut(value = "products", key="#id", condition = "@cacheWritePolicy.writeThrough()")
+    public ProductResponse patchProduct(String id, ProductPatchRequest patchRequest) {
+        log.info("Patching product with ID: {}", id);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfPresent(fields, "skuCode", patchRequest.getSkuCode());
+        putIfPresent(fields, "title", patchRequest.getTitle());
+        putIfPresent(fields, "price", patchRequest.getPrice());
+        putIfPresent(fields, "category", patchRequest.getCategory());
+        putIfPresent(fields, "attributes", patchRequest.getAttributes());
+
+        if (fields.isEmpty()) {
+            return mapper.toResponse(repository.findById(id)
+                    .orElseThrow(() -> new ProductNotFoundException(id)));
+        }
+
+        Product patched = repository.patch(id, patchRequest.getVersion(), fields);
+        if (patched == null) {
+            // Only the failure path pays for telling a stale version from a missing product
+            if (patchRequest.getVersion() != null && repository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Product " + id + " is no longer at version " + patchRequest.getVersion());
+            }
+            throw new ProductNotFoundException(id);
+        }
+        catalogIndexes.written(patched);
+        log.info("Product patched successfully: {} (version {})", id, patched.getVersion());
+        return mapper.toResponse(patched);
+    }
+
+    @CacheEvict(value = "products", key="#id", condition = "@cacheWritePolicy.writeThrough()")
     public void deleteProduct(String id) {
         log.info("Deleting product with ID: {}", id);
-        if (!repository.existsById(id)) {
+        if (repository.removeById(id) == null) {
             log.warn("Attempt to delete non-existent product with ID: {}", id);
             throw new ProductNotFoundException(id);
         }
-        repository.deleteById(id);
+        catalogIndexes.deleted(id);
         log.info("Product deleted successfully: {}", id);
     }
+
+    private static void putIfPresent(Map<String, Object> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package ru.nexus.product.warmup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled Space-Saving top-K of product reads: a fixed number of counters, where a new id takes
+ * over the smallest one. Hot ids survive, long-tail ids churn through the bottom. Memory stays at
+ * {@code capacity} entries however many products are read, and only a sample of reads takes the lock.
+ */
+@Component
+public class AccessFrequencySketch {
+
+    private final int capacity;
+    private final double sampleRate;
+    private final Map<String, Long> counts = new HashMap<>();
+    // count -> ids with that count, so the smallest counter is found in log time
+    private final TreeMap<Long, Set<String>> buckets = new TreeMap<>();
+
+    public AccessFrequencySketch(@Value("${product.cache.warmup.sketch-capacity:20000}") int capacity,
+                                 @Value("${product.cache.warmup.sample-rate:0.1}") double sampleRate) {
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+    }
+
+    public void record(String id) {
+        if (id == null || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        synchronized (this) {
+            Long count = counts.get(id);
+            if (count != null) {
+                move(id, count, count + 1);
+                return;
+            }
+            if (counts.size() < capacity) {
+                move(id, null, 1L);
+                return;
+            }
+            Map.Entry<Long, Set<String>> smallest = buckets.firstEntry();
+            Iterator<String> victims = smallest.getValue().iterator();
+            String victim = victims.next();
+            victims.remove();
+            if (smallest.getValue().isEmpty()) {
+                buckets.remove(smallest.getKey());
+            }
+            counts.remove(victim);
+            // Inherits the evicted count: an upper bound on the newcomer's real frequency
+            move(id, null, smallest.getKey() + 1);
+        }
+    }
+
+    public synchronized List<String> top(int limit) {
+        List<String> top = new ArrayList<>(Math.min(limit, counts.size()));
+        for (Set<String> ids : buckets.descendingMap().values()) {
+            for (String id : ids) {
+                if (top.size() == limit) {
+                    return top;
+                }
+                top.add(id);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Carries a saved ranking over a restart, hottest first, below anything already counted:
+     * live counts are lifted past the seeded ones. Only free counters are seeded.
+     */
+    public synchronized void seed(List<String> hottestFirst) {
+        List<String> seeded = hottestFirst.stream()
+                .filter(id -> id != null && !counts.containsKey(id))
+                .distinct()
+                .limit(capacity - counts.size())
+                .toList();
+        if (seeded.isEmpty()) {
+            return;
+        }
+        long offset = seeded.size();
+        Map<Long, Set<String>> live = new TreeMap<>(buckets);
+        buckets.clear();
+        live.forEach((count, ids) -> buckets.put(count + offset, ids));
+        counts.replaceAll((id, count) -> count + offset);
+        for (int i = 0; i < seeded.size(); i++) {
+            move(seeded.get(i), null, offset - i);
+        }
+    }
+
+    private void move(String id, Long from, long to) {
+        if (from != null) {
+            Set<String> bucket = buckets.get(from);
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                buckets.remove(from);
+            }
+        }
+        counts.put(id, to);
+        buckets.computeIfAbsent(to, ignored -> new LinkedHashSet<>()).add(id);
+    }
+}
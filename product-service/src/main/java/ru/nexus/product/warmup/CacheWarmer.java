@@ -0,0 +1,149 @@
+package ru.nexus.product.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.nexus.product.cache.TwoTierCache;
+import ru.nexus.product.cache.TwoTierCacheManager;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.mapper.ProductMapper;
+import ru.nexus.product.repository.ProductRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preloads the products cache with the ids that were hottest before the restart, so a deploy or a
+ * Redis failover doesn't send the whole read load to Mongo. Runs as an ApplicationRunner, which
+ * Spring finishes before readiness flips to ACCEPTING_TRAFFIC; the time budget keeps a slow Mongo
+ * from holding the pod out of rotation for long.
+ */
+@Slf4j
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    static final String COLLECTION = "cache_warmup";
+    private static final String PRODUCTS_CACHE = "products";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository repository;
+    private final ProductMapper mapper;
+    private final TwoTierCacheManager cacheManager;
+    private final AccessFrequencySketch sketch;
+    private final Timer warmupTimer;
+    private final AtomicLong warmedKeys;
+    private final boolean enabled;
+    private final int topN;
+    private final int batchSize;
+    private final Duration timeout;
+
+    public CacheWarmer(MongoTemplate mongoTemplate,
+                       ProductRepository repository,
+                       ProductMapper mapper,
+                       TwoTierCacheManager cacheManager,
+                       AccessFrequencySketch sketch,
+                       MeterRegistry meterRegistry,
+                       @Value("${product.cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${product.cache.warmup.top-n:5000}") int topN,
+                       @Value("${product.cache.warmup.batch-size:500}") int batchSize,
+                       @Value("${product.cache.warmup.timeout:30s}") Duration timeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.repository = repository;
+        this.mapper = mapper;
+        this.cacheManager = cacheManager;
+        this.sketch = sketch;
+        this.warmupTimer = meterRegistry.timer("product.cache.warmup.duration");
+        this.warmedKeys = meterRegistry.gauge("product.cache.warmup.keys", new AtomicLong());
+        this.enabled = enabled;
+        this.topN = topN;
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            List<String> ids = loadSnapshot();
+            sketch.seed(ids);
+            warmedKeys.set(warm(ids, started + timeout.toNanos()));
+            log.info("Cache warm-up loaded {} of {} hot products in {} ms", warmedKeys.get(), ids.size(),
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (RuntimeException e) {
+            // Best effort: a cold cache is slower, not broken
+            log.warn("Cache warm-up failed, starting cold. Error: {}", e.getMessage());
+        } finally {
+            warmupTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.cache.warmup.save-interval:5m}",
+            initialDelayString = "${product.cache.warmup.save-interval:5m}")
+    public void saveSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        List<String> ids = sketch.top(topN);
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(PRODUCTS_CACHE)),
+                new Update().set("ids", ids).set("savedAt", Instant.now()),
+                COLLECTION);
+    }
+
+    @PreDestroy
+    void saveOnShutdown() {
+        try {
+            saveSnapshot();
+        } catch (RuntimeException e) {
+            log.warn("Failed to save hot product ids on shutdown. Error: {}", e.getMessage());
+        }
+    }
+
+    private List<String> loadSnapshot() {
+        Document snapshot = mongoTemplate.findOne(
+                new Query(Criteria.where("_id").is(PRODUCTS_CACHE)), Document.class, COLLECTION);
+        if (snapshot == null) {
+            return List.of();
+        }
+        List<String> ids = snapshot.getList("ids", String.class, List.of());
+        return ids.size() > topN ? ids.subList(0, topN) : ids;
+    }
+
+    private long warm(List<String> ids, long deadline) {
+        TwoTierCache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        long loaded = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            if (System.nanoTime() > deadline) {
+                log.warn("Cache warm-up ran out of its {} budget", timeout);
+                break;
+            }
+            Map<String, ProductResponse> batch = new HashMap<>();
+            repository.findAllById(ids.subList(from, Math.min(from + batchSize, ids.size())))
+                    .forEach(product -> batch.put(product.getId(), mapper.toResponse(product)));
+            // One pipelined write per batch, L1 included
+            cache.putAll(batch);
+            loaded += batch.size();
+        }
+        return loaded;
+    }
+}
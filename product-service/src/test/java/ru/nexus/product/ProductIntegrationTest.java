@@ -1,6 +1,8 @@
 package ru.nexus.product;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,23 +10,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.nexus.common.test.ContainerFactory;
+import ru.nexus.product.cache.CacheGenerations;
+import ru.nexus.product.dto.ProductBatchRequest;
 import ru.nexus.product.dto.ProductRequest;
 import ru.nexus.product.dto.ProductResponse;
 import ru.nexus.product.entity.Product;
+import ru.nexus.product.index.FacetIndex;
+import ru.nexus.product.outbox.OutboxMessage;
 import ru.nexus.product.repository.ProductRepository;
 
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -54,14 +71,21 @@ class ProductIntegrationTest {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
     @BeforeEach
     void setUp() {
         productRepository.deleteAll();
-        try {
-            Objects.requireNonNull(redisTemplate.keys("products::*")).forEach(key -> redisTemplate.delete(key));
-        } catch (Exception e) {
-            // Redis might be empty or connection issue, ignore for now in test setup
-        }
+        // Starts every test on a fresh, empty generation instead of scanning and deleting keys
+        cacheGenerations.bumpCache("products");
+        cacheGenerations.bumpCache("product-skus");
     }
 
     @Test
@@ -88,6 +112,25 @@ class ProductIntegrationTest {
         assertThat(storedProducts.getFirst().getTitle()).isEqualTo("iPhone 15");
     }
 
+    @Test
+    @DisplayName("Should store product created event in the outbox")
+    void createProductWritesOutbox() throws Exception {
+        ProductRequest productRequest = ProductRequest.builder()
+                .skuCode("SKU-OUTBOX")
+                .title("Outbox Item")
+                .price(BigDecimal.TEN)
+                .category("Test")
+                .build();
+
+        mockMvc.perform(post("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(productRequest)))
+                .andExpect(status().isCreated());
+
+        assertThat(mongoTemplate.exists(
+                new Query(Criteria.where("payload.skuCode").is("SKU-OUTBOX")), OutboxMessage.class)).isTrue();
+    }
+
     @Test
     @DisplayName("Should return 400 when validation fails")
     void createInvalid() throws Exception {
@@ -138,7 +181,7 @@ class ProductIntegrationTest {
         mockMvc.perform(get("/api/v1/products/{id}", productId))
                 .andExpect(status().isOk());
 
-        Object cachedValue = redisTemplate.opsForValue().get("products::" + productId);
+        Object cachedValue = redisTemplate.opsForValue().get(productCacheKey(productId));
         assertThat(cachedValue).isNotNull();
     }
 
@@ -163,7 +206,7 @@ class ProductIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("New Title"));
 
-        Object cachedValue = redisTemplate.opsForValue().get("products::" + savedProduct.getId());
+        Object cachedValue = redisTemplate.opsForValue().get(productCacheKey(savedProduct.getId()));
         assertThat(cachedValue).isNotNull();
     }
     
@@ -174,13 +217,13 @@ class ProductIntegrationTest {
                 .title("To Delete").price(BigDecimal.TEN).category("Del").build());
         
         mockMvc.perform(get("/api/v1/products/{id}", savedProduct.getId()));
-        assertThat(redisTemplate.hasKey("products::" + savedProduct.getId())).isTrue();
+        assertThat(redisTemplate.hasKey(productCacheKey(savedProduct.getId()))).isTrue();
 
         mockMvc.perform(delete("/api/v1/products/{id}", savedProduct.getId()))
                 .andExpect(status().isNoContent()); // 204
 
         assertThat(productRepository.existsById(savedProduct.getId())).isFalse();
-        assertThat(redisTemplate.hasKey("products::" + savedProduct.getId())).isFalse();
+        assertThat(redisTemplate.hasKey(productCacheKey(savedProduct.getId()))).isFalse();
     }
     
     @Test
@@ -219,4 +262,310 @@ class ProductIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(2)));
     }
+
+    @Test
+    @DisplayName("Should walk all products by cursor")
+    void getByCursor() throws Exception {
+        for (String title : List.of("P1", "P2", "P3")) {
+            productRepository.save(Product.builder().title(title).price(BigDecimal.TEN).category("C").build());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/v1/products/cursor").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.total").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/products/cursor").param("size", "2").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/products/cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should walk past products that have no createdAt")
+    void getByCursorWithoutCreatedAt() throws Exception {
+        productRepository.save(Product.builder().title("Dated").price(BigDecimal.TEN).category("C").build());
+        for (String title : List.of("Legacy1", "Legacy2", "Legacy3")) {
+            mongoTemplate.insert(new Document("title", title).append("category", "C"), "catalog");
+        }
+
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/v1/products/cursor").param("size", "1");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(product -> titles.add(product.get("title").asText()));
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+
+        assertThat(titles).hasSize(4).doesNotHaveDuplicates().first().isEqualTo("Dated");
+    }
+
+    @Test
+    @DisplayName("Should filter by price range and sort by price")
+    void getByPriceRange() throws Exception {
+        for (int price : List.of(25, 5, 15, 40)) {
+            productRepository.save(Product.builder()
+                    .title("P" + price).price(BigDecimal.valueOf(price)).category("C").build());
+        }
+
+        mockMvc.perform(get("/api/v1/products/cursor")
+                        .param("category", "C")
+                        .param("minPrice", "10")
+                        .param("maxPrice", "30")
+                        .param("sort", "PRICE_ASC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].price").value(15))
+                .andExpect(jsonPath("$.content[1].price").value(25));
+    }
+
+    @Test
+    @DisplayName("Should patch product fields and reject a stale version")
+    void patchProduct() throws Exception {
+        Product savedProduct = productRepository.save(Product.builder()
+                .title("Patch Me").price(BigDecimal.TEN).category("Test").build());
+
+        mockMvc.perform(patch("/api/v1/products/{id}", savedProduct.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 15, \"version\": 0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Patch Me"))
+                .andExpect(jsonPath("$.price").value(15))
+                .andExpect(jsonPath("$.version").value(1));
+
+        assertThat(redisTemplate.hasKey(productCacheKey(savedProduct.getId()))).isTrue();
+
+        mockMvc.perform(patch("/api/v1/products/{id}", savedProduct.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 20, \"version\": 0}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Should return 409 when a patch takes another product's SKU")
+    void patchDuplicateSku() throws Exception {
+        productRepository.save(Product.builder()
+                .skuCode("SKU-TAKEN").title("Owner").price(BigDecimal.TEN).category("Test").build());
+        Product other = productRepository.save(Product.builder()
+                .skuCode("SKU-OTHER").title("Other").price(BigDecimal.TEN).category("Test").build());
+
+        mockMvc.perform(patch("/api/v1/products/{id}", other.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"skuCode\": \"SKU-TAKEN\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title").value("Duplicate SKU"));
+
+        assertThat(productRepository.findById(other.getId())).get()
+                .extracting(Product::getSkuCode).isEqualTo("SKU-OTHER");
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON feed and report invalid lines")
+    void importProducts() throws Exception {
+        productRepository.save(Product.builder()
+                .skuCode("SKU-1").title("Old").price(BigDecimal.ONE).category("C").build());
+
+        String feed = """
+                {"skuCode": "SKU-1", "title": "Updated", "price": 10, "category": "C"}
+                {"skuCode": "SKU-2", "title": "No price", "category": "C"}
+                {"skuCode": "SKU-3", "title": "New", "price": 20, "category": "C"}
+                not json
+                """;
+
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("application/x-ndjson")
+                        .content(feed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].errors.price").exists())
+                .andExpect(jsonPath("$.errors[1].line").value(4));
+
+        assertThat(productRepository.findAll())
+                .extracting(Product::getTitle)
+                .containsExactlyInAnyOrder("Updated", "New");
+    }
+
+    @Test
+    @DisplayName("Should stream catalog export as NDJSON with projection")
+    void exportProducts() throws Exception {
+        productRepository.save(Product.builder().skuCode("SKU-1").title("P1").price(BigDecimal.TEN).category("C").build());
+        productRepository.save(Product.builder().skuCode("SKU-2").title("P2").price(BigDecimal.ONE).category("C").build());
+
+        MvcResult export = mockMvc.perform(get("/api/v1/products/export").param("fields", "skuCode,title"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Export-Watermark"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.getFirst()).has("price")).isFalse();
+        assertThat(objectMapper.readTree(lines.getFirst()).get("skuCode").asText()).isEqualTo("SKU-1");
+
+        mockMvc.perform(get("/api/v1/products/export").param("fields", "secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should filter by attributes and count facet values")
+    void facetSearch() throws Exception {
+        productRepository.save(Product.builder().title("A1").price(BigDecimal.TEN).category("Phones")
+                .attributes(Map.of("brand", "Apple", "color", "black")).build());
+        productRepository.save(Product.builder().title("A2").price(BigDecimal.TEN).category("Phones")
+                .attributes(Map.of("brand", "Apple", "color", "white")).build());
+        productRepository.save(Product.builder().title("S1").price(BigDecimal.TEN).category("Phones")
+                .attributes(Map.of("brand", "Samsung", "color", "black")).build());
+
+        // The startup build may still be running against an empty collection; rebuild until it sees the data
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            facetIndex.rebuild();
+            mockMvc.perform(get("/api/v1/products/facets")
+                            .param("category", "Phones")
+                            .param("attr.brand", "Apple")
+                            .param("facets", "color", "brand"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.products", hasSize(2)))
+                    .andExpect(jsonPath("$.facets.color.black").value(1))
+                    .andExpect(jsonPath("$.facets.color.white").value(1))
+                    .andExpect(jsonPath("$.facets.brand.Samsung").doesNotExist());
+        });
+
+        mockMvc.perform(get("/api/v1/products/facets").param("attr.weight", "1kg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+
+    @Test
+    @DisplayName("Should miss the cache after the products cache is invalidated")
+    void invalidateCache() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .title("Before").price(BigDecimal.TEN).category("Invalidate").build());
+        expectTitle(product.getId(), "Before");
+        // Behind the cache's back, so only a miss can see it
+        renameInMongo(product.getId(), "After");
+        expectTitle(product.getId(), "Before");
+
+        mockMvc.perform(post("/api/v1/admin/cache/products/invalidate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.generation").isNumber());
+
+        expectTitle(product.getId(), "After");
+    }
+
+    @Test
+    @DisplayName("Should miss the cache only for products of an invalidated category")
+    void invalidateCategory() throws Exception {
+        Product invalidated = productRepository.save(Product.builder()
+                .title("Before").price(BigDecimal.TEN).category("Cat-Invalidate").build());
+        Product kept = productRepository.save(Product.builder()
+                .title("Before").price(BigDecimal.TEN).category("Cat-Keep").build());
+        expectTitle(invalidated.getId(), "Before");
+        expectTitle(kept.getId(), "Before");
+        renameInMongo(invalidated.getId(), "After");
+        renameInMongo(kept.getId(), "After");
+
+        mockMvc.perform(post("/api/v1/admin/cache/categories/{category}/invalidate", "Cat-Invalidate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.generation").isNumber());
+
+        expectTitle(invalidated.getId(), "After");
+        expectTitle(kept.getId(), "Before");
+    }
+
+    @Test
+    @DisplayName("Should batch cached, uncached and unknown ids and SKUs and write the misses back")
+    void getBatch() throws Exception {
+        Product cached = productRepository.save(Product.builder()
+                .skuCode("SKU-BATCH-1").title("Cached").price(BigDecimal.TEN).category("Batch").build());
+        Product uncached = productRepository.save(Product.builder()
+                .skuCode("SKU-BATCH-2").title("Uncached").price(BigDecimal.TEN).category("Batch").build());
+        Product bySku = productRepository.save(Product.builder()
+                .skuCode("SKU-BATCH-3").title("By SKU").price(BigDecimal.TEN).category("Batch").build());
+        mockMvc.perform(get("/api/v1/products/{id}", cached.getId())).andExpect(status().isOk());
+
+        String request = objectMapper.writeValueAsString(ProductBatchRequest.builder()
+                .ids(List.of(cached.getId(), uncached.getId(), "nonExistentId"))
+                // SKU-BATCH-1 is the product already asked for by id, it comes back once
+                .skuCodes(List.of("SKU-BATCH-1", "SKU-BATCH-3", "SKU-NONE"))
+                .build());
+
+        // The second round is served from what the first wrote back
+        for (int round = 0; round < 2; round++) {
+            mockMvc.perform(post("/api/v1/products/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.products[*].id",
+                            containsInAnyOrder(cached.getId(), uncached.getId(), bySku.getId())))
+                    .andExpect(jsonPath("$.missingIds", contains("nonExistentId")))
+                    .andExpect(jsonPath("$.missingSkuCodes", contains("SKU-NONE")));
+
+            assertThat(redisTemplate.hasKey(productCacheKey(uncached.getId()))).isTrue();
+            assertThat(redisTemplate.hasKey(productCacheKey(bySku.getId()))).isTrue();
+            assertThat(redisTemplate.hasKey(skuCacheKey("SKU-BATCH-3"))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should treat a SKU mapping left over from a SKU change as a miss")
+    void getBatchAfterSkuChange() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .skuCode("SKU-OLD").title("Renamed").price(BigDecimal.TEN).category("Batch").build());
+        mockMvc.perform(post("/api/v1/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"skuCodes\": [\"SKU-OLD\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value(product.getId()));
+
+        mockMvc.perform(patch("/api/v1/products/{id}", product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"skuCode\": \"SKU-NEW\", \"version\": 0}"))
+                .andExpect(status().isOk());
+        assertThat(redisTemplate.hasKey(skuCacheKey("SKU-OLD"))).isTrue();
+
+        mockMvc.perform(post("/api/v1/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"skuCodes\": [\"SKU-OLD\", \"SKU-NEW\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(1)))
+                .andExpect(jsonPath("$.products[0].skuCode").value("SKU-NEW"))
+                .andExpect(jsonPath("$.missingSkuCodes", contains("SKU-OLD")));
+    }
+
+    private void expectTitle(String id, String title) throws Exception {
+        mockMvc.perform(get("/api/v1/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(title));
+    }
+
+    private void renameInMongo(String id, String title) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), new Update().set("title", title), Product.class);
+    }
+
+    private String productCacheKey(String id) {
+        return cacheGenerations.prefixFor("products") + id;
+    }
+
+    private String skuCacheKey(String skuCode) {
+        return cacheGenerations.prefixFor("product-skus") + skuCode;
+    }
 }
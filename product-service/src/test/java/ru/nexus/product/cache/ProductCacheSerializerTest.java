@@ -0,0 +1,114 @@
+package ru.nexus.product.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import ru.nexus.product.dto.ProductResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(jsonMapper());
+    private final ProductCacheSerializer binary = new ProductCacheSerializer(ProductCacheSerializer.Format.BINARY, json);
+    private final ProductCacheSerializer legacy = new ProductCacheSerializer(ProductCacheSerializer.Format.JSON, json);
+
+    @Test
+    @DisplayName("Should round-trip an enveloped product, attribute types included")
+    void binaryRoundTrip() {
+        CacheEnvelope envelope = new CacheEnvelope(product(), 1_700_000_000_000L, 42, 7);
+
+        byte[] bytes = binary.serialize(envelope);
+
+        assertThat(bytes[0]).isEqualTo(ProductCacheSerializer.MAGIC);
+        CacheEnvelope read = (CacheEnvelope) binary.deserialize(bytes);
+        assertThat(read).isEqualTo(envelope);
+        Map<String, Object> attributes = ((ProductResponse) read.getValue()).getAttributes();
+        assertThat(attributes.get("weight")).isInstanceOf(BigDecimal.class);
+        assertThat(attributes.get("stock")).isInstanceOf(Long.class);
+        assertThat(attributes.get("since")).isInstanceOf(Instant.class);
+
+        assertThat(binary.deserialize(binary.serialize("plain"))).isEqualTo("plain");
+        assertThat(binary.deserialize(binary.serialize(new ArrayList<>(List.of(1, 2))))).isEqualTo(List.of(1, 2));
+    }
+
+    @Test
+    @DisplayName("Should read entries written as JSON, with and without an envelope")
+    void readsJsonEntries() {
+        CacheEnvelope envelope = new CacheEnvelope(product(), 1_700_000_000_000L, 42, 7);
+
+        assertThat(binary.deserialize(legacy.serialize(envelope))).isEqualTo(envelope);
+        assertThat(binary.deserialize(legacy.serialize(product()))).isEqualTo(product());
+        assertThat(legacy.deserialize(binary.serialize(envelope))).isEqualTo(envelope);
+    }
+
+    @Test
+    @DisplayName("Should read schema 2 frames, which carry untyped attributes")
+    void readsSchema2Frames() throws IOException {
+        ProductResponse product = ProductResponse.builder()
+                .id("p1").skuCode("SKU-1").title("Phone").price(new BigDecimal("9.99")).category("Phones")
+                .attributes(Map.of("color", "black")).version(3L).build();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ProductCacheSerializer.MAGIC);
+        out.writeByte(2);
+        out.writeByte(0x80 | 1);
+        out.writeLong(1_700_000_000_000L);
+        out.writeLong(42);
+        out.writeLong(7);
+        out.write(smile.writeValueAsBytes(product));
+
+        assertThat(binary.deserialize(bytes.toByteArray()))
+                .isEqualTo(new CacheEnvelope(product, 1_700_000_000_000L, 42, 7));
+
+        byte[] future = bytes.toByteArray();
+        future[1] = 99;
+        assertThat(binary.deserialize(future)).isNull();
+    }
+
+    private static ProductResponse product() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("color", "black");
+        attributes.put("weight", new BigDecimal("0.250"));
+        attributes.put("stock", 5L);
+        attributes.put("since", Instant.parse("2024-03-01T10:15:30Z"));
+        attributes.put("tags", new ArrayList<>(List.of("5g", "dual-sim")));
+        return ProductResponse.builder()
+                .id("65f1c0ffee0000000000002a")
+                .skuCode("APL-IP15")
+                .title("Apple iPhone 15")
+                .price(new BigDecimal("999.00"))
+                .category("Phones")
+                .attributes(attributes)
+                .version(4L)
+                .build();
+    }
+
+    // Same as RedisConfig's
+    private static ObjectMapper jsonMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return objectMapper;
+    }
+}
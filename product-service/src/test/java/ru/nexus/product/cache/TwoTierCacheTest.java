@@ -0,0 +1,91 @@
+package ru.nexus.product.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.cache.RedisCache;
+import ru.nexus.product.config.ProductCacheProperties;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+
+    private final RedisCache remote = mock(RedisCache.class);
+    private final CacheGenerations generations = mock(CacheGenerations.class);
+    private final RedisLoadLock loadLock = mock(RedisLoadLock.class);
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(generations.isCurrent(any())).thenReturn(true);
+        when(loadLock.tryAcquire(anyString(), anyString(), any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should refresh early through the refresher, not the loader of the read that triggered it")
+    void refreshesThroughRefresher() {
+        // A TTL shorter than the load and a huge beta make every hit an early refresh
+        TwoTierCache cache = cache(Duration.ofMillis(1), 1_000_000);
+
+        assertThat(cache.get("p1", () -> slowLoad("v1"))).isEqualTo("v1");
+        assertThat(cache.<String>get("p1", () -> {
+            throw new AssertionError("The read's loader must not run for a refresh");
+        })).isEqualTo("v1");
+
+        assertThat(refreshes).hasValue(1);
+        ArgumentCaptor<Object> stored = ArgumentCaptor.forClass(Object.class);
+        verify(remote, times(2)).put(eq("p1"), stored.capture());
+        assertThat(((CacheEnvelope) stored.getValue()).getValue()).isEqualTo("refreshed-p1");
+    }
+
+    @Test
+    @DisplayName("Should stamp put entries with the typical load time so they can be refreshed early too")
+    void stampsPutsWithLoadTime() {
+        TwoTierCache cache = cache(Duration.ofMinutes(10), 1.0);
+        cache.get("p1", () -> slowLoad("v1"));
+
+        cache.put("p2", "v2");
+
+        ArgumentCaptor<Object> stored = ArgumentCaptor.forClass(Object.class);
+        verify(remote).put(eq("p2"), stored.capture());
+        assertThat(((CacheEnvelope) stored.getValue()).getComputeMillis()).isPositive();
+    }
+
+    private TwoTierCache cache(Duration ttl, double beta) {
+        CacheRefresher refresher = new CacheRefresher() {
+            @Override
+            public String cacheName() {
+                return "products";
+            }
+
+            @Override
+            public Object load(Object key) {
+                refreshes.incrementAndGet();
+                return "refreshed-" + key;
+            }
+        };
+        return new TwoTierCache("products", remote, mock(RedisBulkOperations.class),
+                Caffeine.newBuilder().<String, CacheEnvelope>build(), mock(CacheInvalidationBus.class), generations,
+                loadLock, Runnable::run, refresher, ttl,
+                new ProductCacheProperties.Stampede(Duration.ofSeconds(5), Duration.ofMillis(500), Duration.ofMillis(25), beta),
+                new SimpleMeterRegistry());
+    }
+
+    private static String slowLoad(String value) throws InterruptedException {
+        Thread.sleep(20);
+        return value;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.nexus.product.changestream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nexus.common.test.ContainerFactory;
+import ru.nexus.product.cache.CacheGenerations;
+import ru.nexus.product.dto.ProductRequest;
+import ru.nexus.product.dto.ProductResponse;
+import ru.nexus.product.entity.Product;
+import ru.nexus.product.index.FacetIndex;
+import ru.nexus.product.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "product.cache.change-stream.enabled=true",
+        "product.cache.change-stream.checkpoint-interval=0s"
+})
+@Testcontainers
+@AutoConfigureMockMvc
+class CatalogChangeStreamIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = ContainerFactory.mongo();
+
+    @Container
+    @ServiceConnection(name = "redis")
+    static GenericContainer<?> redis = ContainerFactory.redis();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        cacheGenerations.bumpCache("products");
+    }
+
+    @Test
+    @DisplayName("Should keep the entry a write-through update just put")
+    void keepsWrittenThroughEntry() throws Exception {
+        ProductResponse created = create("Old Title");
+        double updates = events("update");
+
+        mockMvc.perform(put("/api/v1/products/{id}", created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ProductRequest.builder()
+                                .title("New Title").price(BigDecimal.TEN).category("Phones").build())))
+                .andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> events("update") > updates);
+        assertThat(redisTemplate.hasKey(cacheKey(created.getId()))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should evict the entry when somebody else changes the document")
+    void evictsOnForeignWrite() throws Exception {
+        ProductResponse created = create("Cached Title");
+        mockMvc.perform(get("/api/v1/products/{id}", created.getId())).andExpect(status().isOk());
+        assertThat(redisTemplate.hasKey(cacheKey(created.getId()))).isTrue();
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(created.getId())),
+                Update.update("title", "Changed Elsewhere"), Product.class);
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> !redisTemplate.hasKey(cacheKey(created.getId())));
+        mockMvc.perform(get("/api/v1/products/{id}", created.getId()))
+                .andExpect(jsonPath("$.title").value("Changed Elsewhere"));
+    }
+
+    @Test
+    @DisplayName("Should index products written through the API from the stream alone")
+    void indexesFromStream() throws Exception {
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                mockMvc.perform(get("/api/v1/products/facets").param("category", "Phones"))
+                        .andExpect(status().isOk()));
+        long before = facetDocuments();
+
+        create("Streamed");
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> facetDocuments() == before + 1);
+    }
+
+    private ProductResponse create(String title) throws Exception {
+        String json = mockMvc.perform(post("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ProductRequest.builder()
+                                .title(title).price(BigDecimal.TEN).category("Phones")
+                                .attributes(Map.of("brand", "Apple")).build())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, ProductResponse.class);
+    }
+
+    private double events(String operation) {
+        var counter = meterRegistry.find("product.change_stream.events").tag("operation", operation).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private long facetDocuments() {
+        return (long) meterRegistry.get("product.index.facets.documents").gauge().value();
+    }
+
+    private String cacheKey(String id) {
+        return cacheGenerations.prefixFor("products") + id;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.nexus.product.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.nexus.product.entity.Product;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CatalogIndexesTest {
+
+    private final CatalogIndex<?> index = mock(CatalogIndex.class);
+    private final Product product = Product.builder().id("p1").title("Phone").build();
+
+    @Test
+    @DisplayName("Should apply write-path changes when there is no change stream")
+    void writePathMaintains() {
+        CatalogIndexes indexes = new CatalogIndexes(List.of(index), false);
+
+        indexes.written(product);
+        indexes.deleted("p2");
+
+        verify(index).put(product);
+        verify(index).remove("p2");
+    }
+
+    @Test
+    @DisplayName("Should leave the indexes to the change stream when it runs")
+    void streamMaintains() {
+        CatalogIndexes indexes = new CatalogIndexes(List.of(index), true);
+
+        indexes.written(product);
+        indexes.deleted("p2");
+        verifyNoInteractions(index);
+
+        indexes.put(product);
+        verify(index).put(product);
+    }
+
+    @Test
+    @DisplayName("Should index a transactional write only once it commits")
+    void waitsForCommit() {
+        CatalogIndexes indexes = new CatalogIndexes(List.of(index), false);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            indexes.written(product);
+            verifyNoInteractions(index);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(index).put(product);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
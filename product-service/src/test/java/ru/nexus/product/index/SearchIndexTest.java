@@ -0,0 +1,76 @@
+package ru.nexus.product.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import ru.nexus.product.entity.Product;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTest {
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.empty());
+        searchIndex = new SearchIndex(mongoTemplate, new SimpleMeterRegistry(), true);
+        searchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should rank by trigram overlap and tolerate a typo")
+    void ranksByOverlap() {
+        put(1, "Samsung Galaxy S24", "SAM-S24");
+        put(2, "Apple iPhone 15", "APL-IP15");
+        put(3, "iPhone 15 case", "ACC-IP15");
+
+        List<SearchHit> hits = searchIndex.search("iphnoe 15", 10);
+        assertThat(hits).extracting(SearchHit::productId).containsExactlyInAnyOrder(id(2), id(3));
+
+        assertThat(searchIndex.search("aplip15", 10)).extracting(SearchHit::productId).first().isEqualTo(id(2));
+        assertThat(searchIndex.search("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop removed products")
+    void removes() {
+        put(1, "Apple iPhone 15", "APL-IP15");
+        searchIndex.remove(id(1));
+
+        assertThat(searchIndex.search("iphone", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return the newest products on ties even past the candidate cap")
+    void newestFirstPastCap() {
+        int products = 25_000;
+        for (int i = 0; i < products; i++) {
+            put(i, "Phone case", "CASE-" + i);
+        }
+
+        List<SearchHit> hits = searchIndex.search("phone case", 3);
+        assertThat(hits).extracting(SearchHit::productId)
+                .containsExactly(id(products - 1), id(products - 2), id(products - 3));
+    }
+
+    private void put(int n, String title, String skuCode) {
+        searchIndex.put(Product.builder().id(id(n)).title(title).skuCode(skuCode).build());
+    }
+
+    // The index keys products by ObjectId
+    private static String id(int n) {
+        return "%024x".formatted(n);
+    }
+}
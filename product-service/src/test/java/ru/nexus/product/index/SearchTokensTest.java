@@ -0,0 +1,51 @@
+package ru.nexus.product.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTokensTest {
+
+    @Test
+    @DisplayName("Should lowercase, fold accents and ё, and split on punctuation")
+    void tokenize() {
+        assertThat(SearchTokens.tokenize("  Crème-Brûlée, Ёлка iPhone15 ")).containsExactly("creme", "brulee", "елка", "iphone15");
+        assertThat(SearchTokens.tokenize(" -- ")).isEmpty();
+        assertThat(SearchTokens.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should add the joined SKU as an extra token")
+    void skuTokens() {
+        assertThat(SearchTokens.skuTokens("APL-IP15")).containsExactly("apl", "ip15", "aplip15");
+        assertThat(SearchTokens.skuTokens("SKU1")).containsExactly("sku1");
+    }
+
+    @Test
+    @DisplayName("Should build prefix-padded trigrams")
+    void grams() {
+        assertThat(SearchTokens.grams("ip")).containsExactly("$$i", "$ip");
+        assertThat(SearchTokens.grams("case")).containsExactly("$$c", "$ca", "cas", "ase");
+    }
+
+    @Test
+    @DisplayName("Should allow more typos for longer words")
+    void allowedTypos() {
+        assertThat(SearchTokens.allowedTypos("abc")).isZero();
+        assertThat(SearchTokens.allowedTypos("abcd")).isEqualTo(1);
+        assertThat(SearchTokens.allowedTypos("abcdefgh")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count an adjacent swap as one edit")
+    void withinDistance() {
+        assertThat(SearchTokens.withinDistance("iphone", "iphone", 0)).isTrue();
+        assertThat(SearchTokens.withinDistance("iphnoe", "iphone", 1)).isTrue();
+        assertThat(SearchTokens.withinDistance("iphon", "iphone", 1)).isTrue();
+        assertThat(SearchTokens.withinDistance("ipone", "iphnoe", 1)).isFalse();
+        assertThat(SearchTokens.withinDistance("ipone", "iphnoe", 2)).isTrue();
+        assertThat(SearchTokens.withinDistance("samsung", "iphone", 2)).isFalse();
+        assertThat(SearchTokens.withinDistance("a", "abcd", 2)).isFalse();
+    }
+}
@@ -0,0 +1,45 @@
+package ru.nexus.product.warmup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessFrequencySketchTest {
+
+    private static final List<String> HOT = List.of("hot-0", "hot-1", "hot-2", "hot-3", "hot-4");
+
+    @Test
+    @DisplayName("Should keep the hot ids while a long tail churns through the other counters")
+    void keepsTopUnderChurn() {
+        AccessFrequencySketch sketch = new AccessFrequencySketch(10, 1.0);
+
+        int cold = 0;
+        for (int round = 0; round < 300; round++) {
+            HOT.forEach(sketch::record);
+            for (int i = 0; i < 3; i++) {
+                sketch.record("cold-" + cold++);
+            }
+        }
+
+        assertThat(sketch.top(5)).containsExactlyInAnyOrderElementsOf(HOT);
+        assertThat(sketch.top(100)).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("Should seed a saved ranking in order, below live counts and only into free counters")
+    void seedsBelowLiveCounts() {
+        AccessFrequencySketch sketch = new AccessFrequencySketch(4, 1.0);
+        sketch.record("live");
+
+        sketch.seed(List.of("saved-0", "live", "saved-1", "saved-2", "saved-3"));
+
+        assertThat(sketch.top(10)).containsExactly("live", "saved-0", "saved-1", "saved-2");
+
+        // Seeded counts still weigh: one read of a newcomer evicts the coldest seed, not the hottest
+        sketch.record("new");
+        assertThat(sketch.top(10)).containsExactly("live", "saved-0", "saved-1", "new");
+    }
+}
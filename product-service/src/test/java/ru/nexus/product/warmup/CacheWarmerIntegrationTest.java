@@ -0,0 +1,76 @@
+package ru.nexus.product.warmup;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nexus.common.test.ContainerFactory;
+import ru.nexus.product.cache.CacheGenerations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class CacheWarmerIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = ContainerFactory.mongo();
+
+    @Container
+    @ServiceConnection(name = "redis")
+    static GenericContainer<?> redis = ContainerFactory.redis();
+
+    private static final String HOT_ID = new ObjectId().toHexString();
+    private static final String WARM_ID = new ObjectId().toHexString();
+    private static final String COLD_ID = new ObjectId().toHexString();
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private AccessFrequencySketch accessFrequencySketch;
+
+    // Runs before the context starts, as a snapshot saved by the previous instance would be there
+    @BeforeAll
+    static void saveSnapshot() {
+        try (MongoClient client = MongoClients.create(mongo.getReplicaSetUrl())) {
+            MongoDatabase database = client.getDatabase("test");
+            for (String id : List.of(HOT_ID, WARM_ID, COLD_ID)) {
+                database.getCollection("catalog").insertOne(new Document("_id", new ObjectId(id))
+                        .append("title", "Product " + id)
+                        .append("category", "Warmup"));
+            }
+            database.getCollection(CacheWarmer.COLLECTION).insertOne(new Document("_id", "products")
+                    .append("ids", List.of(HOT_ID, WARM_ID)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should load the saved hot products into the cache before startup finishes")
+    void warmsFromSnapshot() {
+        String prefix = cacheGenerations.prefixFor("products");
+
+        assertThat(redisTemplate.hasKey(prefix + HOT_ID)).isTrue();
+        assertThat(redisTemplate.hasKey(prefix + WARM_ID)).isTrue();
+        assertThat(redisTemplate.hasKey(prefix + COLD_ID)).isFalse();
+        assertThat(accessFrequencySketch.top(2)).containsExactly(HOT_ID, WARM_ID);
+    }
+}